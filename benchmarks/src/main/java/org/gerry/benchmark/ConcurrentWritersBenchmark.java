@@ -0,0 +1,92 @@
+package org.gerry.benchmark;
+
+import org.gerry.solution.Ledger;
+import org.gerry.solution.TransactionRejectedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Transactions per second through one shared Ledger with 1, 2, 4 and 8 writer threads, the mix
+// LedgerConcurrencyTest checks for correctness: random accounts and June dates, 7 deposits to 3 withdrawals.
+// Withdrawals that would overdraw are rejected and still count as an operation.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentWritersBenchmark {
+    private static final int JUNE_1 = (int) LedgerDataset.YEAR_START.withMonth(6).toEpochDay();
+
+    @State(Scope.Benchmark)
+    public static class SharedLedger {
+        @Param({"64", "10000"})
+        public int accounts;
+
+        public Ledger ledger;
+        public String[] accountIds;
+
+        // A fresh ledger per iteration keeps the accounts from growing without bound
+        @Setup(Level.Iteration)
+        public void setUp() {
+            ledger = LedgerDataset.createLedger(1);
+            accountIds = new String[accounts];
+            for (int a = 0; a < accounts; a++) {
+                accountIds[a] = "AC" + a;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object writers1(SharedLedger shared, Writer writer) {
+        return record(shared, writer);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Object writers2(SharedLedger shared, Writer writer) {
+        return record(shared, writer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object writers4(SharedLedger shared, Writer writer) {
+        return record(shared, writer);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object writers8(SharedLedger shared, Writer writer) {
+        return record(shared, writer);
+    }
+
+    private static Object record(SharedLedger shared, Writer writer) {
+        SplittableRandom random = writer.random;
+        String accountId = shared.accountIds[random.nextInt(shared.accounts)];
+        char type = random.nextInt(10) < 7 ? 'D' : 'W';
+        try {
+            return shared.ledger.recordTransaction(JUNE_1 + random.nextInt(30), accountId, type,
+                    1 + random.nextInt(10_000));
+        } catch (TransactionRejectedException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.gerry.benchmark;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.TransactionRejectedException;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Synthetic ledger: accounts x transactions per account spread over 2023, with the rules spread evenly over the
+// same year. Seeded, so every fork and every run sees the same data.
+@State(Scope.Benchmark)
+public class LedgerDataset {
+    static final LocalDate YEAR_START = LocalDate.of(2023, 1, 1);
+    static final int YEAR = 2023;
+    static final int MONTH = 6;
+
+    @Param({"100", "10000"})
+    public int accounts;
+
+    @Param({"10", "200"})
+    public int transactionsPerAccount;
+
+    @Param({"1", "50"})
+    public int ruleCount;
+
+    public Ledger ledger;
+    public String[] accountIds;
+
+    @Setup
+    public void build() throws TransactionRejectedException {
+        ledger = createLedger(ruleCount);
+        accountIds = new String[accounts];
+        Random random = new Random(42);
+        int startDay = (int) YEAR_START.toEpochDay();
+        for (int a = 0; a < accounts; a++) {
+            accountIds[a] = "AC" + a;
+            ledger.recordTransaction(startDay, accountIds[a], 'D', 1_000_000);
+            for (int t = 1; t < transactionsPerAccount; t++) {
+                // Dates move forward through the year like a real feed
+                int day = startDay + (int) ((long) t * 365 / transactionsPerAccount);
+                char type = random.nextInt(3) == 0 ? 'W' : 'D';
+                ledger.recordTransaction(day, accountIds[a], type, 1 + random.nextInt(5_000));
+            }
+        }
+    }
+
+    public Account account(int index) {
+        return ledger.getAccount(accountIds[index]);
+    }
+
+    // A ledger with only the rules, for benchmarks that bring their own transactions
+    static Ledger createLedger(int ruleCount) {
+        Ledger ledger = new Ledger();
+        Random random = new Random(7);
+        for (int r = 0; r < ruleCount; r++) {
+            LocalDate effectiveDate = YEAR_START.plusDays((long) r * 365 / ruleCount);
+            BigDecimal rate = BigDecimal.valueOf(100 + random.nextInt(200), 2);
+            ledger.getInterestRules().upsert(new InterestRule(effectiveDate, "RULE" + r, rate));
+        }
+        return ledger;
+    }
+}
@@ -0,0 +1,61 @@
+package org.gerry.benchmark;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.RuleTimeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleLookupBenchmark {
+    @Param({"1", "50", "1000"})
+    public int ruleCount;
+
+    private RuleTimeline rules;
+    private LocalDate[] monthStarts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rules = LedgerDataset.createLedger(ruleCount).getInterestRules();
+        monthStarts = new LocalDate[12];
+        for (int m = 0; m < 12; m++) {
+            monthStarts[m] = LocalDate.of(LedgerDataset.YEAR, m + 1, 1);
+        }
+    }
+
+    @Benchmark
+    public InterestRule ruleInForce() {
+        return rules.getRuleInForce(nextMonth().plusDays(14));
+    }
+
+    // The lookup the interest engine does once per statement
+    @Benchmark
+    public List<InterestRule> rulesForMonth() {
+        LocalDate start = nextMonth();
+        return rules.getRulesForPeriod(start, start.plusMonths(1).minusDays(1));
+    }
+
+    private LocalDate nextMonth() {
+        LocalDate month = monthStarts[next];
+        next = (next + 1) % monthStarts.length;
+        return month;
+    }
+}
@@ -0,0 +1,68 @@
+package org.gerry.benchmark;
+
+import org.gerry.solution.InterestEngine;
+import org.gerry.solution.PrintStatement;
+import org.gerry.solution.PrintStatement.Statement;
+import org.gerry.solution.StatementRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Per-account costs of a statement: the monthly interest, the opening balance, the whole statement and rendering
+// it as text.
+// Each call moves on to the next account so the results are not just one account sitting in cache.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementBenchmark {
+    private static final LocalDate MONTH_START = LocalDate.of(LedgerDataset.YEAR, LedgerDataset.MONTH, 1);
+
+    private final StatementRenderer renderer = StatementRenderer.create(StatementRenderer.Format.TEXT,
+            Writer.nullWriter());
+    private int next;
+
+    @Benchmark
+    public BigDecimal calculateInterest(LedgerDataset dataset) {
+        return InterestEngine.calculateInterest(dataset.account(nextIndex(dataset)), dataset.ledger.getInterestRules(),
+                LedgerDataset.YEAR, LedgerDataset.MONTH);
+    }
+
+    @Benchmark
+    public BigDecimal openingBalance(LedgerDataset dataset) {
+        return dataset.account(nextIndex(dataset)).getBalanceBefore(MONTH_START);
+    }
+
+    @Benchmark
+    public Statement buildStatement(LedgerDataset dataset) {
+        return PrintStatement.buildStatement(dataset.account(nextIndex(dataset)), dataset.ledger.getInterestRules(),
+                LedgerDataset.YEAR, LedgerDataset.MONTH);
+    }
+
+    @Benchmark
+    public void renderStatement(LedgerDataset dataset) throws IOException {
+        renderer.render(PrintStatement.buildStatement(dataset.account(nextIndex(dataset)),
+                dataset.ledger.getInterestRules(), LedgerDataset.YEAR, LedgerDataset.MONTH));
+        renderer.flush();
+    }
+
+    private int nextIndex(LedgerDataset dataset) {
+        int index = next;
+        next = index + 1 == dataset.accounts ? 0 : index + 1;
+        return index;
+    }
+}
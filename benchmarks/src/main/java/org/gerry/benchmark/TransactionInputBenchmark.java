@@ -0,0 +1,88 @@
+package org.gerry.benchmark;
+
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.InputTransaction;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.LineParser;
+import org.gerry.solution.TransactionRejectedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The validation and recording path behind InputTransaction.handleTransactionInput, without the console echo
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionInputBenchmark {
+    private static final int ACCOUNTS = 1_000;
+
+    @Param({"1", "50"})
+    public int ruleCount;
+
+    private final LineParser parser = new LineParser();
+    private Ledger ledger;
+    private String[] depositLines;
+    private String[] overdraftLines;
+    private String[] malformedLines;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws TransactionRejectedException {
+        // A fresh ledger per iteration keeps the accounts from growing without bound
+        ledger = LedgerDataset.createLedger(ruleCount);
+        depositLines = new String[ACCOUNTS];
+        overdraftLines = new String[ACCOUNTS];
+        malformedLines = new String[ACCOUNTS];
+        for (int a = 0; a < ACCOUNTS; a++) {
+            InputTransaction.recordTransaction(parser, "20230601 AC" + a + " D 100.00", ledger);
+            depositLines[a] = String.format("202306%02d AC%d D %d.%02d", 1 + a % 30, a, 1 + a % 500, a % 100);
+            overdraftLines[a] = "20230615 AC" + a + " W 100000.00";
+            malformedLines[a] = "20230631 AC" + a + " X 1,00";
+        }
+    }
+
+    @Benchmark
+    public Transaction recordDeposit() throws TransactionRejectedException {
+        return InputTransaction.recordTransaction(parser, depositLines[nextIndex()], ledger);
+    }
+
+    // Passes every field check and is rejected by the balance check, so nothing is appended
+    @Benchmark
+    public TransactionRejectedException rejectOverdraft() {
+        return reject(overdraftLines[nextIndex()]);
+    }
+
+    @Benchmark
+    public TransactionRejectedException rejectMalformed() {
+        return reject(malformedLines[nextIndex()]);
+    }
+
+    private TransactionRejectedException reject(String line) {
+        try {
+            InputTransaction.recordTransaction(parser, line, ledger);
+            throw new IllegalStateException("Line was accepted: " + line);
+        } catch (TransactionRejectedException e) {
+            return e;
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == ACCOUNTS ? 0 : index + 1;
+        return index;
+    }
+}
@@ -0,0 +1,323 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.Transaction;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Transactions are stored column by column in growable primitive arrays, in the order they were added.
+// Transaction records are only created when a caller reads them through the list views.
+//
+// Each account has its own read/write lock: appends take the write lock and the public readers take the read
+// lock, so accounts can be written from several threads while statements are being built.
+public class Account {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String accountId;
+    // Handle given by the ledger's AccountDirectory, -1 for an account outside any ledger
+    private int handle = -1;
+
+    private int[] days = new int[INITIAL_CAPACITY];
+    private long[] amountCents = new long[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] sequences = new int[INITIAL_CAPACITY];
+    // Positions of the transactions ordered by day, ties kept in the order they were added
+    private int[] byDate = new int[INITIAL_CAPACITY];
+    private int transactionCount;
+
+    // End-of-day cumulative balance in cents for every epoch day that has at least one transaction, sorted by day
+    private int[] checkpointDays = new int[INITIAL_CAPACITY];
+    private long[] checkpointCents = new long[INITIAL_CAPACITY];
+    private int checkpointCount;
+    private long balanceCents;
+
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public Account(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    void setHandle(int handle) {
+        this.handle = handle;
+    }
+
+    public int getTransactionCount() {
+        lock.readLock().lock();
+        try {
+            return transactionCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Runs the reader under the read lock, so everything it reads comes from the same point in time
+    public <T> T withReadLock(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The transactions added so far, in the order they were added. Positions never move, so the view stays
+    // valid while later transactions are appended; it just does not include them.
+    public List<Transaction> getTransactions() {
+        return new TransactionView(0, getTransactionCount());
+    }
+
+    // Transactions dated within [from, to], in date order. A back-dated append reorders the date index, so
+    // the range is copied out under the read lock.
+    public List<Transaction> getTransactionsBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            int fromIndex = firstByDateOnOrAfter((int) from.toEpochDay(), transactionCount);
+            int toIndex = firstByDateOnOrAfter((int) to.toEpochDay() + 1, transactionCount);
+            List<Transaction> transactions = new ArrayList<>(toIndex - fromIndex);
+            for (int i = fromIndex; i < toIndex; i++) {
+                transactions.add(toTransaction(byDate[i]));
+            }
+            return transactions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BigDecimal getBalance() {
+        return Money.fromCents(getBalanceCents());
+    }
+
+    public long getBalanceCents() {
+        lock.readLock().lock();
+        try {
+            return balanceCents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Adds a transaction whose id is in the yyyyMMdd-NN form used by InputTransaction
+    public void addTransaction(Transaction transaction) {
+        String transactionId = transaction.transactionId();
+        int separator = transactionId.lastIndexOf('-');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Transaction id must be in yyyyMMdd-NN form: " + transactionId);
+        }
+        append((int) transaction.date().toEpochDay(), transaction.type(), Money.toCents(transaction.amount()),
+                Integer.parseInt(transactionId, separator + 1, transactionId.length(), 10));
+    }
+
+    public void append(int epochDay, char type, long cents, int sequence) {
+        lock.writeLock().lock();
+        try {
+            appendLocked(epochDay, type, cents, sequence);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendLocked(int epochDay, char type, long cents, int sequence) {
+        if (transactionCount == days.length) {
+            int capacity = transactionCount * 2;
+            days = Arrays.copyOf(days, capacity);
+            amountCents = Arrays.copyOf(amountCents, capacity);
+            types = Arrays.copyOf(types, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+            byDate = Arrays.copyOf(byDate, capacity);
+        }
+
+        int position = transactionCount++;
+        days[position] = epochDay;
+        amountCents[position] = cents;
+        types[position] = (byte) type;
+        sequences[position] = sequence;
+
+        // Back-dated transactions are slotted in after the last one on the same day
+        int dateIndex = firstByDateOnOrAfter(epochDay + 1, position);
+        System.arraycopy(byDate, dateIndex, byDate, dateIndex + 1, position - dateIndex);
+        byDate[dateIndex] = position;
+
+        long delta = type == 'D' ? cents : -cents;
+        balanceCents += delta;
+
+        // Seed a checkpoint for a new day from the previous one, then shift it and every later checkpoint.
+        // Transactions normally arrive in date order, so the tail is usually just this one entry.
+        int index = Arrays.binarySearch(checkpointDays, 0, checkpointCount, epochDay);
+        if (index < 0) {
+            index = -index - 1;
+            insertCheckpoint(index, epochDay, index == 0 ? 0 : checkpointCents[index - 1]);
+        }
+        for (int i = index; i < checkpointCount; i++) {
+            checkpointCents[i] += delta;
+        }
+    }
+
+    // Balance at the end of the given date
+    public BigDecimal getBalanceAtDate(LocalDate date) {
+        return Money.fromCents(getBalanceCentsAtDay((int) date.toEpochDay()));
+    }
+
+    // Balance at the start of the given date, before any of its transactions
+    public BigDecimal getBalanceBefore(LocalDate date) {
+        return Money.fromCents(getBalanceCentsBeforeDay((int) date.toEpochDay()));
+    }
+
+    public long getBalanceCentsAtDay(int epochDay) {
+        return getBalanceCentsBeforeDay(epochDay + 1);
+    }
+
+    public long getBalanceCentsBeforeDay(int epochDay) {
+        lock.readLock().lock();
+        try {
+            int index = firstCheckpointOnOrAfter(epochDay) - 1;
+            return index < 0 ? 0 : checkpointCents[index];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Checkpoints are exposed by position so callers can walk a date range without boxing. These do not lock;
+    // call them inside withReadLock so the positions stay put.
+    public int getCheckpointCount() {
+        return checkpointCount;
+    }
+
+    public int getCheckpointDay(int index) {
+        return checkpointDays[index];
+    }
+
+    public long getCheckpointCents(int index) {
+        return checkpointCents[index];
+    }
+
+    public int firstCheckpointOnOrAfter(int epochDay) {
+        int index = Arrays.binarySearch(checkpointDays, 0, checkpointCount, epochDay);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    // The transactions added so far. Positions never move and the arrays are only ever replaced by bigger copies,
+    // so the prefix captured here stays valid without copying while later transactions are appended.
+    Columns columns() {
+        lock.readLock().lock();
+        try {
+            return new Columns(days, amountCents, types, sequences, transactionCount, balanceCents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rebuilds an account from its columns in insertion order, in one pass rather than one append at a time
+    static Account restore(String accountId, Columns columns) {
+        int count = columns.count();
+        int capacity = Math.max(INITIAL_CAPACITY, count);
+        Account account = new Account(accountId);
+        account.days = Arrays.copyOf(columns.days(), capacity);
+        account.amountCents = Arrays.copyOf(columns.amountCents(), capacity);
+        account.types = Arrays.copyOf(columns.types(), capacity);
+        account.sequences = Arrays.copyOf(columns.sequences(), capacity);
+        account.transactionCount = count;
+
+        // Date order, ties in insertion order: sort (day, position) pairs packed into longs
+        long[] keys = new long[count];
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) account.days[i] << 32) | i;
+            sorted &= i == 0 || account.days[i - 1] <= account.days[i];
+        }
+        if (!sorted) {
+            Arrays.sort(keys);
+        }
+        account.byDate = new int[capacity];
+        account.checkpointDays = new int[capacity];
+        account.checkpointCents = new long[capacity];
+        long balance = 0;
+        for (int i = 0; i < count; i++) {
+            int position = (int) keys[i];
+            account.byDate[i] = position;
+            balance += account.types[position] == 'D' ? account.amountCents[position] : -account.amountCents[position];
+            int day = account.days[position];
+            if (account.checkpointCount > 0 && account.checkpointDays[account.checkpointCount - 1] == day) {
+                account.checkpointCents[account.checkpointCount - 1] = balance;
+            } else {
+                account.checkpointDays[account.checkpointCount] = day;
+                account.checkpointCents[account.checkpointCount++] = balance;
+            }
+        }
+        account.balanceCents = balance;
+        return account;
+    }
+
+    // Lower bound over the day column through the first count entries of byDate
+    private int firstByDateOnOrAfter(int epochDay, int count) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (days[byDate[mid]] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private Transaction toTransaction(int position) {
+        return new Transaction(LocalDate.ofEpochDay(days[position]), accountId, (char) types[position],
+                Money.fromCents(amountCents[position]), TransactionIds.format(days[position], sequences[position]));
+    }
+
+    private void insertCheckpoint(int index, int day, long cents) {
+        if (checkpointCount == checkpointDays.length) {
+            checkpointDays = Arrays.copyOf(checkpointDays, checkpointCount * 2);
+            checkpointCents = Arrays.copyOf(checkpointCents, checkpointCount * 2);
+        }
+        System.arraycopy(checkpointDays, index, checkpointDays, index + 1, checkpointCount - index);
+        System.arraycopy(checkpointCents, index, checkpointCents, index + 1, checkpointCount - index);
+        checkpointDays[index] = day;
+        checkpointCents[index] = cents;
+        checkpointCount++;
+    }
+
+    // The first count entries of each column; the arrays may be longer
+    record Columns(int[] days, long[] amountCents, byte[] types, int[] sequences, int count, long balanceCents) {
+    }
+
+    // Read-only window over a range of positions in insertion order
+    private class TransactionView extends AbstractList<Transaction> {
+        private final int from;
+        private final int to;
+
+        TransactionView(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            // The columns may be swapped for bigger copies by a concurrent append
+            return withReadLock(() -> toTransaction(from + index));
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
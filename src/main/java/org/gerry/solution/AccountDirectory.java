@@ -0,0 +1,315 @@
+package org.gerry.solution;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+// Symbol table of account ids and the accounts behind them. Each id is interned on first sight into a dense int
+// handle that never changes, and the accounts live in an array indexed by handle. The parsers look an id up
+// straight from the characters of the input line, so the hot path neither allocates the id string nor builds a
+// map key; the string is kept once per account, for output and the journal.
+//
+// Lookups are lock-free: the open-addressing table holds handle + 1 in an AtomicIntegerArray, and each id and
+// account is written before the slot that publishes it. New ids and accounts are added under the directory's
+// monitor; the tables are grown by copying and republishing, so a lookup racing with an insert may miss the new
+// id, exactly as it would had it come first.
+//
+// It is also the ConcurrentMap<String, Account> view the rest of the code and the tests have always used.
+public class AccountDirectory extends AbstractMap<String, Account> implements ConcurrentMap<String, Account> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile String[] ids = new String[INITIAL_CAPACITY];
+    private volatile AtomicReferenceArray<Account> accounts = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    // Kept at most half full, so probes stay short
+    private volatile AtomicIntegerArray slots = new AtomicIntegerArray(INITIAL_CAPACITY * 2);
+    private volatile int idCount;
+    private volatile int accountCount;
+
+    // Handle of the id made of chars[from, to), or -1 if it has never been seen
+    public int find(CharSequence chars, int from, int to) {
+        return find(chars, from, to, hash(chars, from, to));
+    }
+
+    public int find(String accountId) {
+        return find(accountId, 0, accountId.length(), accountId.hashCode());
+    }
+
+    // Handle of the id made of chars[from, to), adding the id if it is new
+    public int intern(CharSequence chars, int from, int to) {
+        int hash = hash(chars, from, to);
+        int handle = find(chars, from, to, hash);
+        if (handle >= 0) {
+            return handle;
+        }
+        synchronized (this) {
+            handle = find(chars, from, to, hash);
+            return handle >= 0 ? handle : add(chars.subSequence(from, to).toString(), hash);
+        }
+    }
+
+    public int intern(String accountId) {
+        int handle = find(accountId);
+        if (handle >= 0) {
+            return handle;
+        }
+        synchronized (this) {
+            handle = find(accountId);
+            return handle >= 0 ? handle : add(accountId, accountId.hashCode());
+        }
+    }
+
+    public String getId(int handle) {
+        return ids[handle];
+    }
+
+    // Account of the handle, or null if the handle is unknown (-1) or has no account
+    public Account get(int handle) {
+        AtomicReferenceArray<Account> current = accounts;
+        return handle < 0 || handle >= current.length() ? null : current.get(handle);
+    }
+
+    // Account of an interned handle, created on first use
+    public Account getOrCreate(int handle) {
+        Account account = get(handle);
+        if (account != null) {
+            return account;
+        }
+        synchronized (this) {
+            account = accounts.get(handle);
+            if (account == null) {
+                account = new Account(ids[handle]);
+                setAccount(handle, account);
+            }
+            return account;
+        }
+    }
+
+    @Override
+    public Account get(Object key) {
+        return key instanceof String accountId ? get(find(accountId)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return accountCount;
+    }
+
+    @Override
+    public synchronized Account put(String accountId, Account account) {
+        if (account == null) {
+            throw new NullPointerException();
+        }
+        int handle = intern(accountId);
+        Account previous = accounts.get(handle);
+        setAccount(handle, account);
+        return previous;
+    }
+
+    @Override
+    public synchronized Account putIfAbsent(String accountId, Account account) {
+        Account previous = get(accountId);
+        return previous != null ? previous : put(accountId, account);
+    }
+
+    @Override
+    public Account computeIfAbsent(String accountId, Function<? super String, ? extends Account> mapping) {
+        Account account = get(accountId);
+        if (account != null) {
+            return account;
+        }
+        synchronized (this) {
+            int handle = intern(accountId);
+            account = accounts.get(handle);
+            if (account == null) {
+                account = mapping.apply(accountId);
+                if (account != null) {
+                    setAccount(handle, account);
+                }
+            }
+            return account;
+        }
+    }
+
+    // The id keeps its handle; only the account is dropped
+    @Override
+    public synchronized Account remove(Object key) {
+        if (!(key instanceof String accountId)) {
+            return null;
+        }
+        int handle = find(accountId);
+        Account previous = get(handle);
+        if (previous != null) {
+            accounts.set(handle, null);
+            accountCount--;
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        if (value != null && get(key) == value) {
+            remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized boolean replace(String accountId, Account oldValue, Account newValue) {
+        if (newValue != null && oldValue != null && get(accountId) == oldValue) {
+            put(accountId, newValue);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized Account replace(String accountId, Account value) {
+        return value != null && get(accountId) != null ? put(accountId, value) : null;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (int handle = 0; handle < idCount; handle++) {
+            accounts.set(handle, null);
+        }
+        accountCount = 0;
+    }
+
+    // Entries in handle order, i.e. the order the ids were first seen
+    @Override
+    public Set<Entry<String, Account>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Account>> iterator() {
+                return new Iterator<>() {
+                    private final int count = idCount;
+                    private int next = advance(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    @Override
+                    public Entry<String, Account> next() {
+                        if (next >= count) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Account> entry = new SimpleImmutableEntry<>(ids[next], get(next));
+                        next = advance(next + 1);
+                        return entry;
+                    }
+
+                    private int advance(int handle) {
+                        while (handle < count && get(handle) == null) {
+                            handle++;
+                        }
+                        return handle;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return accountCount;
+            }
+        };
+    }
+
+    private int find(CharSequence chars, int from, int to, int hash) {
+        AtomicIntegerArray table = slots;
+        int mask = table.length() - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table.get(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            if (matches(ids[entry - 1], chars, from, to)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    // Called holding the monitor, for an id known to be absent
+    private int add(String accountId, int hash) {
+        int handle = idCount;
+        if (handle == ids.length) {
+            grow();
+        }
+        ids[handle] = accountId;
+        idCount = handle + 1;
+        insert(slots, handle, hash);
+        return handle;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        String[] grownIds = Arrays.copyOf(ids, capacity);
+        AtomicReferenceArray<Account> grownAccounts = new AtomicReferenceArray<>(capacity);
+        for (int handle = 0; handle < idCount; handle++) {
+            grownAccounts.set(handle, accounts.get(handle));
+        }
+        AtomicIntegerArray grownSlots = new AtomicIntegerArray(capacity * 2);
+        for (int handle = 0; handle < idCount; handle++) {
+            insert(grownSlots, handle, grownIds[handle].hashCode());
+        }
+        ids = grownIds;
+        accounts = grownAccounts;
+        slots = grownSlots;
+    }
+
+    private static void insert(AtomicIntegerArray table, int handle, int hash) {
+        int mask = table.length() - 1;
+        int slot = spread(hash) & mask;
+        while (table.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.set(slot, handle + 1);
+    }
+
+    private void setAccount(int handle, Account account) {
+        if (accounts.get(handle) == null) {
+            accountCount++;
+        }
+        account.setHandle(handle);
+        accounts.set(handle, account);
+    }
+
+    // Same value as String.hashCode, so String lookups can use the cached hash
+    private static int hash(CharSequence chars, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String id, CharSequence chars, int from, int to) {
+        if (id.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) != chars.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,22 +1,140 @@
 package org.gerry.solution;
 
+import org.gerry.solution.StatementRenderer.Format;
+import javax.management.JMException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 public class BankAccountInterest {
     private static Scanner scanner = new Scanner(System.in);
-    private static final Map<String, List<Transaction>> accounts = new HashMap<>();
-    private static final List<InterestRule> interestRules = new ArrayList<>();
-    private static final Map<String, Integer> transactionCountByDate = new HashMap<>();
+    private static final Ledger ledger = new Ledger();
+    private static MetricsReporter metricsReporter;
+    // Default Interest : 1.95
+    static final InterestRule DEFAULT_INTEREST_RULE = new InterestRule(LocalDate.of(2023, 1, 1),
+            "RULE01", new BigDecimal("1.95"));
     public static void setScanner(Scanner customScanner) {
         scanner = customScanner;
     }
 
     public static void main(String[] args) {
-        // Default Interest : 1.95
-        interestRules.add(new InterestRule(LocalDate.of(2023, 1, 1),
-                "RULE01", new BigDecimal("1.95")));
+        ledger.getInterestRules().upsert(DEFAULT_INTEREST_RULE);
+
+        // In batch mode standard output carries only the requested statements, so notices go to standard error
+        String batchPath = getOption(args, "--batch", null);
+        PrintStream notices = batchPath == null ? System.out : System.err;
+
+        // In sharded mode the accounts live in worker processes, not in this one's ledger
+        String shardCount = getOption(args, "--shards", null);
+        if (shardCount != null) {
+            System.exit(runSharded(shardCount, batchPath, getOption(args, "--journal", null),
+                    getOption(args, "--sync-batch", "64"), getOption(args, "--sync-wait-ms", "2"),
+                    getOption(args, "--format", "text")));
+        }
+
+        // Start from the latest snapshot, if there is one, then replay the journal written after it.
+        // Rules from either override the default.
+        String snapshotPath = getOption(args, "--snapshot", null);
+        Duration snapshotInterval = null;
+        if (snapshotPath != null) {
+            String seconds = getOption(args, "--snapshot-interval-s", "300");
+            try {
+                snapshotInterval = Duration.ofSeconds(Long.parseLong(seconds));
+            } catch (NumberFormatException e) {
+                // Reported below with the non-positive values
+            }
+            if (snapshotInterval == null || snapshotInterval.isNegative() || snapshotInterval.isZero()) {
+                notices.println("Invalid snapshot interval: " + seconds + ". Use a positive number of seconds.");
+                exitIfBatch(batchPath, BatchRunner.EXIT_FAILED);
+                return;
+            }
+        }
+        if (snapshotPath != null && Files.exists(Path.of(snapshotPath))) {
+            try {
+                Snapshot.Summary summary = ledger.loadSnapshot(Path.of(snapshotPath));
+                notices.println("Loaded " + summary.accounts() + " accounts and " + summary.transactions()
+                        + " transactions from snapshot " + snapshotPath);
+            } catch (IOException e) {
+                notices.println("Error loading snapshot: " + e.getMessage());
+                exitIfBatch(batchPath, BatchRunner.EXIT_FAILED);
+                return;
+            }
+        }
+
+        String journalPath = getOption(args, "--journal", null);
+        if (journalPath != null) {
+            try {
+                long records = ledger.openJournal(Path.of(journalPath),
+                        Integer.parseInt(getOption(args, "--sync-batch", "64")),
+                        Duration.ofMillis(Long.parseLong(getOption(args, "--sync-wait-ms", "2"))));
+                notices.println("Recovered " + records + " journal records from " + journalPath);
+                if (ledger.getJournal().getTruncatedBytes() > 0) {
+                    notices.println("Discarded " + ledger.getJournal().getTruncatedBytes()
+                            + " bytes of incomplete journal data");
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                notices.println("Error opening journal: " + e.getMessage());
+                exitIfBatch(batchPath, BatchRunner.EXIT_FAILED);
+                return;
+            }
+        }
+
+        SnapshotWriter snapshotWriter = null;
+        if (snapshotPath != null) {
+            snapshotWriter = new SnapshotWriter(ledger, Path.of(snapshotPath), snapshotInterval, notices);
+        }
+
+        // Metrics are always available over JMX; the periodic report goes to standard error when asked for
+        try {
+            Metrics.registerMBeans();
+        } catch (JMException e) {
+            notices.println("Error registering metrics with JMX: " + e.getMessage());
+        }
+        String metricsInterval = getOption(args, "--metrics-interval-s", null);
+        if (metricsInterval != null) {
+            try {
+                metricsReporter = new MetricsReporter(System.err,
+                        getOption(args, "--metrics-format", "text").equalsIgnoreCase("json"),
+                        Duration.ofSeconds(Long.parseLong(metricsInterval)));
+            } catch (IllegalArgumentException e) {
+                notices.println("Error starting metrics report: " + e.getMessage());
+            }
+        }
+
+        String httpPort = getOption(args, "--http", null);
+        if (httpPort != null) {
+            serveHttp(httpPort, snapshotWriter);
+            return;
+        }
+
+        if (batchPath != null) {
+            Format format = Format.fromName(getOption(args, "--format", "text"));
+            int status;
+            if (format == null) {
+                System.err.println("Unknown output format. Use text, csv or json.");
+                status = BatchRunner.EXIT_FAILED;
+            } else {
+                status = runBatch(batchPath, format, new BatchRunner.LedgerCommands(ledger));
+            }
+            if (close(snapshotWriter, notices) && status == BatchRunner.EXIT_OK) {
+                status = BatchRunner.EXIT_FAILED;
+            }
+            System.exit(status);
+        }
 
         boolean isAppRunning = true;
         boolean isFirstPrompt = true;
@@ -40,15 +158,119 @@ public class BankAccountInterest {
                 System.out.println("\nThank you for banking with AwesomeGIC Bank.");
                 System.out.println("Have a nice day!");
             } else if (choice.charAt(0) == 'T') {
-                InputTransaction.handleTransactionInput(scanner, accounts, transactionCountByDate);
+                InputTransaction.handleTransactionInput(scanner, ledger);
+            } else if (choice.charAt(0) == 'B') {
+                BulkTransactionImport.handleBulkImportInput(scanner, ledger);
             } else if (choice.charAt(0) == 'I') {
-                DefineInterestRules.handleInterestRuleInput(scanner, interestRules);
+                DefineInterestRules.handleInterestRuleInput(scanner, ledger);
             } else if (choice.charAt(0) == 'P') {
-                PrintStatement.handleStatementPrint(scanner, accounts, interestRules);
+                PrintStatement.handleStatementPrint(scanner, ledger);
+            } else if (choice.charAt(0) == 'M') {
+                MonthEndStatementRun.handleMonthEndInput(scanner, ledger);
+            } else if (choice.charAt(0) == 'A') {
+                PortfolioAccrual.handleAccrualInput(scanner, ledger);
             } else {
                 System.out.println("Invalid option. Please try again.");
             }
         }
+
+        close(snapshotWriter, System.out);
+    }
+
+    // Serves the HTTP API on the loopback interface until the process is stopped, then shuts down as Q would
+    private static void serveHttp(String port, SnapshotWriter snapshotWriter) {
+        HttpApiServer server;
+        try {
+            server = HttpApiServer.start(ledger,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port)));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error starting HTTP server: " + e.getMessage());
+            close(snapshotWriter, System.out);
+            return;
+        }
+        System.out.println("Serving the HTTP API on http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + " (stop with Ctrl+C)");
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            close(snapshotWriter, System.out);
+            stopped.countDown();
+        }));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs the batch on --shards worker processes, each keeping its own journal when --journal is given
+    private static int runSharded(String shardCount, String batchPath, String journalPath, String syncBatch,
+            String syncWaitMillis, String formatName) {
+        Format format = Format.fromName(formatName);
+        if (batchPath == null) {
+            System.err.println("Sharded mode runs with --batch.");
+            return BatchRunner.EXIT_FAILED;
+        }
+        if (format == null) {
+            System.err.println("Unknown output format. Use text, csv or json.");
+            return BatchRunner.EXIT_FAILED;
+        }
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(Integer.parseInt(shardCount), format,
+                journalPath == null ? null : Path.of(journalPath), Integer.parseInt(syncBatch),
+                Duration.ofMillis(Long.parseLong(syncWaitMillis)))) {
+            return runBatch(batchPath, format, coordinator);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error running shards: " + e.getMessage());
+            return BatchRunner.EXIT_FAILED;
+        }
+    }
+
+    // Runs the commands of the file, or of standard input for "-", and returns the exit status
+    private static int runBatch(String batchPath, Format format, BatchRunner.Commands commands) {
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()), 1 << 16);
+        try (Reader input = batchPath.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Path.of(batchPath), StandardCharsets.UTF_8)) {
+            return BatchRunner.run(input, commands, output, System.err, format);
+        } catch (IOException e) {
+            System.err.println("Error reading commands: " + e.getMessage());
+            return BatchRunner.EXIT_FAILED;
+        }
+    }
+
+    // The final snapshot is taken before the journal closes so it records the journal's end.
+    // Returns true if the journal could not be closed cleanly.
+    private static boolean close(SnapshotWriter snapshotWriter, PrintStream notices) {
+        if (snapshotWriter != null) {
+            snapshotWriter.close();
+        }
+        if (metricsReporter != null) {
+            metricsReporter.close();
+        }
+        try {
+            ledger.closeJournal();
+            return false;
+        } catch (IOException e) {
+            notices.println("Error closing journal: " + e.getMessage());
+            return true;
+        }
+    }
+
+    private static void exitIfBatch(String batchPath, int status) {
+        if (batchPath != null) {
+            System.exit(status);
+        }
+    }
+
+    // Value following the given option, or the default if the option is absent
+    static String getOption(String[] args, String option, String defaultValue) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(option)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
     }
 
     private static void displayMainMenu() {
@@ -63,8 +285,11 @@ public class BankAccountInterest {
 
     private static void displayMenuOptions() {
         System.out.println("[T] Input Transactions");
+        System.out.println("[B] Bulk Import Transactions");
         System.out.println("[I] Define Interest Rules");
         System.out.println("[P] Print Statement");
+        System.out.println("[M] Month-End Statements");
+        System.out.println("[A] Interest Accrual Report");
         System.out.println("[Q] Quit");
         System.out.print("> ");
     }
@@ -0,0 +1,182 @@
+package org.gerry.solution;
+
+import org.gerry.solution.StatementRenderer.Format;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless mode: runs one command per line from a file or pipe, with the command letter and its input on the
+// same line, e.g.
+//
+//     T 20230601 AC001 D 100.00
+//     I 20230615 RULE02 2.20
+//     P AC001 202306
+//     M 202306
+//
+// No menus or echo tables are printed. Only statements go to the output, M writing every account's statement
+// for the month in account order, and rejected lines go to the error stream as "Line N: message". Blank lines
+// and lines starting with # are skipped, and Q stops early. Transactions and rules are validated exactly as the
+// interactive prompts validate them.
+public class BatchRunner {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_REJECTED = 1;
+    public static final int EXIT_FAILED = 2;
+
+    // What the commands are applied to: one ledger in this process, or the shards behind a ShardCoordinator
+    public interface Commands {
+        void recordTransaction(CharSequence input) throws TransactionRejectedException, IOException;
+
+        // Applies the transaction, or only starts to where the answer would mean waiting on another process; a
+        // later rejection is then returned by awaitTransactions with the line number. Applied at once by default.
+        default void submitTransaction(CharSequence input, long lineNumber)
+                throws TransactionRejectedException, IOException {
+            recordTransaction(input);
+        }
+
+        // Waits for every submitted transaction and returns those rejected since the last call, in line order
+        default List<Rejection> awaitTransactions() throws IOException {
+            return List.of();
+        }
+
+        void defineRule(CharSequence input) throws TransactionRejectedException, IOException;
+
+        void renderStatement(CharSequence input, StatementRenderer renderer)
+                throws TransactionRejectedException, IOException;
+
+        void renderMonthEnd(CharSequence input, StatementRenderer renderer)
+                throws TransactionRejectedException, IOException;
+    }
+
+    // A submitted transaction that was rejected after submitTransaction returned
+    public record Rejection(long lineNumber, TransactionRejectedException exception) {
+    }
+
+    // Returns EXIT_OK when every command was applied, EXIT_REJECTED when some lines were rejected and
+    // EXIT_FAILED when the input could not be read or a change could not be journaled
+    public static int run(Reader input, Ledger ledger, Writer output, PrintStream errors, Format format) {
+        return run(input, new LedgerCommands(ledger), output, errors, format);
+    }
+
+    public static int run(Reader input, Commands commands, Writer output, PrintStream errors, Format format) {
+        BufferedReader reader = new BufferedReader(input, 1 << 16);
+        StatementRenderer renderer = StatementRenderer.create(format, output);
+        boolean headerWritten = false;
+        long rejected = 0;
+        long lineNumber = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int start = 0;
+                while (start < line.length() && line.charAt(start) <= ' ') start++;
+                if (start == line.length() || line.charAt(start) == '#') {
+                    continue;
+                }
+
+                char command = Character.toUpperCase(line.charAt(start));
+                if (command == 'Q') {
+                    break;
+                }
+                // The command letter must stand on its own
+                if (start + 1 < line.length() && line.charAt(start + 1) > ' ') {
+                    command = 0;
+                }
+                CharBuffer payload = CharBuffer.wrap(line, start + 1, line.length());
+                // Anything else may write output or errors, so the rejections of earlier lines come first
+                if (command != 'T') {
+                    rejected += report(commands.awaitTransactions(), errors);
+                }
+
+                try {
+                    switch (command) {
+                        case 'T' -> commands.submitTransaction(payload, lineNumber);
+                        case 'I' -> commands.defineRule(payload);
+                        case 'P', 'M' -> {
+                            if (!headerWritten) {
+                                renderer.header();
+                                headerWritten = true;
+                            }
+                            if (command == 'P') {
+                                commands.renderStatement(payload, renderer);
+                            } else {
+                                commands.renderMonthEnd(payload, renderer);
+                            }
+                        }
+                        default -> {
+                            errors.println("Line " + lineNumber + ": Invalid option. Use T, I, P, M or Q.");
+                            rejected++;
+                        }
+                    }
+                } catch (TransactionRejectedException e) {
+                    errors.println("Line " + lineNumber + ": " + e.getMessage());
+                    rejected++;
+                }
+            }
+            rejected += report(commands.awaitTransactions(), errors);
+            renderer.flush();
+        } catch (IOException | UncheckedIOException e) {
+            errors.println("Line " + lineNumber + ": " + e.getMessage());
+            try {
+                renderer.flush();
+            } catch (IOException ignored) {
+                // Already failing; the first error is the one reported
+            }
+            return EXIT_FAILED;
+        }
+        return rejected == 0 ? EXIT_OK : EXIT_REJECTED;
+    }
+
+    // Prints the rejections as a rejected line is printed; returns how many there were
+    private static int report(List<Rejection> rejections, PrintStream errors) {
+        for (Rejection rejection : rejections) {
+            errors.println("Line " + rejection.lineNumber() + ": " + rejection.exception().getMessage());
+        }
+        return rejections.size();
+    }
+
+    // The commands applied to a ledger in this process
+    public static class LedgerCommands implements Commands {
+        private final Ledger ledger;
+        private final LineParser parser = new LineParser();
+
+        public LedgerCommands(Ledger ledger) {
+            this.ledger = ledger;
+        }
+
+        @Override
+        public void recordTransaction(CharSequence input) throws TransactionRejectedException {
+            InputTransaction.recordTransaction(parser, input, ledger);
+        }
+
+        @Override
+        public void defineRule(CharSequence input) throws TransactionRejectedException, IOException {
+            DefineInterestRules.defineRule(parser, input, ledger);
+        }
+
+        @Override
+        public void renderStatement(CharSequence input, StatementRenderer renderer)
+                throws TransactionRejectedException, IOException {
+            PrintStatement.renderStatement(parser, input, ledger, renderer);
+        }
+
+        @Override
+        public void renderMonthEnd(CharSequence input, StatementRenderer renderer)
+                throws TransactionRejectedException, IOException {
+            int yearMonth = MonthEndStatementRun.parseMonth(parser, input);
+            String[] accountIds = MonthEndStatementRun.sortedAccountIds(ledger.getAccounts());
+            String[] statements = MonthEndStatementRun.renderStatements(ledger.getAccounts(), accountIds,
+                    ledger.getInterestRules(), yearMonth / 100, yearMonth % 100, renderer.getFormat(),
+                    ForkJoinPool.commonPool());
+            for (String statement : statements) {
+                renderer.renderRendered(statement);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.gerry.solution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+public class BulkTransactionImport {
+    // Only the first rejected lines are listed individually; the rest are just counted by reason
+    private static final int MAX_LISTED_REJECTIONS = 20;
+    // Slots in the ingest pipeline's ring; the reader waits once this many lines are in flight
+    private static final int PIPELINE_CAPACITY = 1 << 14;
+
+    public static void handleBulkImportInput(Scanner scanner, Ledger ledger) {
+        System.out.println("\nPlease enter the path of a file with one <Date> <Account> <Type> <Amount> per line");
+        System.out.println("(or enter blank to go back to main menu):");
+        System.out.print("> ");
+
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        ImportSummary summary;
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(input), StandardCharsets.UTF_8)) {
+            summary = importTransactions(reader, ledger, defaultParserThreads(), defaultApplyShards());
+        } catch (IOException e) {
+            System.out.println("Error reading transactions file: " + e.getMessage());
+            return;
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        printSummary(summary, seconds);
+    }
+
+    // Applies every non-blank line in order with the same validation as interactive input, without echoing
+    public static ImportSummary importTransactions(Reader reader, Ledger ledger) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader br ? br : new BufferedReader(reader, 1 << 16);
+        ImportSummary summary = new ImportSummary();
+        LineParser parser = new LineParser();
+
+        String line;
+        long lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                InputTransaction.recordTransaction(parser, line, ledger);
+                summary.accept();
+            } catch (TransactionRejectedException e) {
+                summary.reject(lineNumber, e.getReason(), e.getMessage());
+            }
+        }
+        return summary;
+    }
+
+    // Same outcome per account as the sequential import, parsing on several threads and applying on one thread
+    // per shard of the accounts; see IngestPipeline. Transaction ids within a date follow the apply order.
+    public static ImportSummary importTransactions(Reader reader, Ledger ledger, int parserThreads, int applyShards)
+            throws IOException {
+        return new IngestPipeline(ledger, parserThreads, applyShards, PIPELINE_CAPACITY).run(reader);
+    }
+
+    static int defaultParserThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    static int defaultApplyShards() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    }
+
+    private static void printSummary(ImportSummary summary, double seconds) {
+        System.out.printf("\nImported %d transactions, rejected %d lines in %.3f s\n",
+                summary.getAccepted(), summary.getRejected(), seconds);
+        if (summary.getRejected() == 0) {
+            return;
+        }
+
+        System.out.println("| Reason                                                          | Lines    |");
+        for (Map.Entry<RejectReason, Long> entry : summary.getRejectedByReason().entrySet()) {
+            System.out.printf("| %-63s | %8d |\n", entry.getKey().getMessage(), entry.getValue());
+        }
+
+        for (String rejection : summary.getListedRejections()) {
+            System.out.println(rejection);
+        }
+        if (summary.getRejected() > summary.getListedRejections().size()) {
+            System.out.println("... " + (summary.getRejected() - summary.getListedRejections().size())
+                    + " more rejected lines not listed");
+        }
+    }
+
+    public static class ImportSummary {
+        private long accepted;
+        private long rejected;
+        private final Map<RejectReason, Long> rejectedByReason = new EnumMap<>(RejectReason.class);
+        private final List<String> listedRejections = new ArrayList<>();
+
+        void accept() {
+            accepted++;
+        }
+
+        void reject(long lineNumber, RejectReason reason, String message) {
+            rejected++;
+            rejectedByReason.merge(reason, 1L, Long::sum);
+            if (listedRejections.size() < MAX_LISTED_REJECTIONS) {
+                listedRejections.add("Line " + lineNumber + ": " + message);
+            }
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public Map<RejectReason, Long> getRejectedByReason() {
+            return rejectedByReason;
+        }
+
+        public List<String> getListedRejections() {
+            return listedRejections;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.gerry.solution;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Count, latency and rejections of one command, whichever front end (menu, batch or HTTP) it came from. The
+// command's entry point records the time from its start to its return, including rejected attempts, and the
+// reason of every rejection:
+//
+//     long startNanos = System.nanoTime();
+//     try {
+//         ...
+//     } catch (TransactionRejectedException e) {
+//         Metrics.TRANSACTION.rejected(e.getReason());
+//         throw e;
+//     } finally {
+//         Metrics.TRANSACTION.record(startNanos);
+//     }
+public class CommandMetrics implements CommandMetricsMXBean {
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLongArray rejections = new AtomicLongArray(REASONS.length);
+
+    CommandMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void rejected(RejectReason reason) {
+        rejections.incrementAndGet(reason.ordinal());
+    }
+
+    public long getRejected(RejectReason reason) {
+        return rejections.get(reason.ordinal());
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getRejected() {
+        long rejected = 0;
+        for (int i = 0; i < REASONS.length; i++) {
+            rejected += rejections.get(i);
+        }
+        return rejected;
+    }
+
+    // Reasons that occurred at least once, in declaration order
+    @Override
+    public Map<String, Long> getRejectionsByReason() {
+        Map<String, Long> byReason = new LinkedHashMap<>();
+        for (RejectReason reason : REASONS) {
+            long count = rejections.get(reason.ordinal());
+            if (count > 0) {
+                byReason.put(reason.name(), count);
+            }
+        }
+        return byReason;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMeanNanos() / 1_000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getValueAtPercentile(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latency.getValueAtPercentile(90) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getValueAtPercentile(99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getValueAtPercentile(99.9) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMaxNanos() / 1_000.0;
+    }
+}
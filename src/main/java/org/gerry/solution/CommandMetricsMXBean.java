@@ -0,0 +1,24 @@
+package org.gerry.solution;
+
+import java.util.Map;
+
+// JMX view of one command's metrics, registered as org.gerry.solution:type=CommandMetrics,name=<command>
+public interface CommandMetricsMXBean {
+    long getCount();
+
+    long getRejected();
+
+    Map<String, Long> getRejectionsByReason();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -1,16 +1,22 @@
 package org.gerry.solution;
 
 import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.RuleChangePropagator.InterestChange;
+import org.gerry.solution.RuleChangePropagator.Report;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
 
 public class DefineInterestRules {
-    public static void handleInterestRuleInput(Scanner scanner, List<InterestRule> interestRules) {
+    private static final BigDecimal MAX_RATE = new BigDecimal("100");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int MAX_LISTED_CHANGES = 20;
+
+    public static void handleInterestRuleInput(Scanner scanner, Ledger ledger) {
         System.out.println("\nPlease enter interest rules details in <Date> <RuleId> <Rate in %> format");
         System.out.println("(or enter blank to go back to main menu):");
         System.out.print("> ");
@@ -20,58 +26,103 @@ public class DefineInterestRules {
             return;
         }
 
-        String[] parts = input.split("\\s+");
-        if (parts.length != 3) {
-            System.out.println("Invalid format. Please try again.");
-            return;
-        }
-
         try {
-            // Parse date
-            LocalDate date;
-            try {
-                date = LocalDate.parse(parts[0], DateTimeFormatter.ofPattern("yyyyMMdd"));
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Use YYYYMMdd format.");
-                return;
-            }
-
-            // Parse rule ID
-            String ruleId = parts[1];
-
-            // Parse interest rate
-            BigDecimal rate;
-            try {
-                rate = new BigDecimal(parts[2]);
-                if (rate.compareTo(BigDecimal.ZERO) <= 0 || rate.compareTo(new BigDecimal("100")) >= 0) {
-                    System.out.println("Interest rate must be greater than 0 and less than 100.");
-                    return;
-                }
-            } catch (NumberFormatException e) {
-                System.out.println("Invalid rate format.");
-                return;
-            }
-
-            // Remove any existing rule for the same date
-            interestRules.removeIf(rule -> rule.effectiveDate().equals(date));
-
-            // Add the new rule
-            interestRules.add(new InterestRule(date, ruleId, rate));
-
-            // Sort rules by date
-            Collections.sort(interestRules);
+            Report report = defineRuleAndPropagate(LineParser.get(), input, ledger);
 
             // Display all interest rules
             System.out.println("\nInterest rules:");
             System.out.println("| Date     | RuleId | Rate (%) |");
-            for (InterestRule rule : interestRules) {
+            for (InterestRule rule : ledger.getInterestRules()) {
                 System.out.printf("| %s | %-6s | %8.2f |\n",
-                        rule.effectiveDate().format(DateTimeFormatter.ofPattern("yyyyMMdd")),
+                        rule.effectiveDate().format(DATE_FORMAT),
                         rule.ruleId(),
                         rule.rate());
             }
+            printReport(report);
+        } catch (TransactionRejectedException e) {
+            System.out.println(e.getMessage());
         } catch (Exception e) {
             System.out.println("Error processing interest rule: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Validates a <Date> <RuleId> <Rate in %> line and adds the rule, replacing any existing rule for the same
+    // date. Returns the replaced rule, if any. For batch runs and shards, where no one looks at what it changed.
+    public static InterestRule defineRule(LineParser parser, CharSequence input, Ledger ledger)
+            throws TransactionRejectedException, IOException {
+        long startNanos = System.nanoTime();
+        try {
+            return ledger.defineRule(parseInterestRule(parser, input));
+        } catch (TransactionRejectedException e) {
+            Metrics.INTEREST_RULE.rejected(e.getReason());
+            throw e;
+        } finally {
+            Metrics.INTEREST_RULE.record(startNanos);
+        }
+    }
+
+    // As defineRule, and recomputes the interest the rule changed across all accounts for the report shown at the
+    // prompt and returned by the HTTP API
+    public static Report defineRuleAndPropagate(LineParser parser, CharSequence input, Ledger ledger)
+            throws TransactionRejectedException, IOException {
+        long startNanos = System.nanoTime();
+        try {
+            return RuleChangePropagator.defineRule(ledger, parseInterestRule(parser, input));
+        } catch (TransactionRejectedException e) {
+            Metrics.INTEREST_RULE.rejected(e.getReason());
+            throw e;
+        } finally {
+            Metrics.INTEREST_RULE.record(startNanos);
+        }
+    }
+
+    // Validates a <Date> <RuleId> <Rate in %> line
+    public static InterestRule parseInterestRule(LineParser parser, CharSequence input)
+            throws TransactionRejectedException {
+        if (parser.tokenize(input) != 3) {
+            throw new TransactionRejectedException(RejectReason.INVALID_FORMAT);
+        }
+
+        // Parse date
+        long epochDay = parser.parseEpochDay(0);
+        if (epochDay == LineParser.INVALID) {
+            throw new TransactionRejectedException(RejectReason.INVALID_DATE);
+        }
+
+        // Parse rule ID
+        String ruleId = parser.tokenString(1);
+
+        // Parse interest rate
+        BigDecimal rate = parser.parseDecimal(2);
+        if (rate == null) {
+            throw new TransactionRejectedException(RejectReason.INVALID_RATE);
+        }
+        if (rate.compareTo(BigDecimal.ZERO) <= 0 || rate.compareTo(MAX_RATE) >= 0) {
+            throw new TransactionRejectedException(RejectReason.RATE_OUT_OF_RANGE);
+        }
+        return new InterestRule(LocalDate.ofEpochDay(epochDay), ruleId, rate);
+    }
+
+    private static void printReport(Report report) {
+        if (report.from() == null) {
+            System.out.println("\nNo interest figures are affected by this rule.");
+            return;
+        }
+        System.out.printf("\nRecomputed %d account months affected from %s to %s, interest changed for %d\n",
+                report.recomputed(), report.from().format(DATE_FORMAT), report.to().format(DATE_FORMAT),
+                report.changes().size());
+        if (report.changes().isEmpty()) {
+            return;
+        }
+
+        System.out.println("| Account    | Month  | Old interest | New interest |");
+        List<InterestChange> changes = report.changes();
+        for (InterestChange change : changes.subList(0, Math.min(changes.size(), MAX_LISTED_CHANGES))) {
+            System.out.printf("| %-10s | %s | %12.2f | %12.2f |\n", change.accountId(),
+                    change.month().format(MONTH_FORMAT), change.oldInterest(), change.newInterest());
+        }
+        if (changes.size() > MAX_LISTED_CHANGES) {
+            System.out.println("... " + (changes.size() - MAX_LISTED_CHANGES) + " more changes not listed");
+        }
+    }
+}
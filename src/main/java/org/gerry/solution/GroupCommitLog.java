@@ -0,0 +1,204 @@
+package org.gerry.solution;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-ahead stage in front of the journal. Writers append their record to the journal as usual and then wait
+// here until it is durable. A single flusher thread collects the records waiting at the same time into a group
+// and forces the journal once per group, so many concurrent writers share one device sync.
+//
+// A group is forced as soon as it holds maxBatchSize records, or maxWait after its first record arrived,
+// whichever comes first. A batch size of 1 forces every record on its own.
+public class GroupCommitLog implements Closeable {
+    private final Journal journal;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+
+    // Guarded by lock
+    private long durablePosition;
+    private int pendingRecords;
+    private long firstPendingNanos;
+    // Sum over the waiting records of how long after the first one each arrived
+    private long pendingArrivalOffsetNanos;
+    private RuntimeException failure;
+    private boolean closing;
+
+    private long groupCount;
+    private long recordCount;
+    private int largestBatch;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    public GroupCommitLog(Journal journal, int maxBatchSize, Duration maxWait) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("Maximum wait must not be negative");
+        }
+        this.journal = journal;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        // What was in the journal when it was opened is already on disk
+        this.durablePosition = journal.size();
+        this.flusher = Thread.ofPlatform().daemon().name("journal-group-commit").start(this::flushLoop);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public Duration getMaxWait() {
+        return Duration.ofNanos(maxWaitNanos);
+    }
+
+    // Blocks until the journal has been forced up to position, the size returned by the append.
+    // Throws what the force failed with (an UncheckedIOException for an I/O error) if it failed.
+    public void awaitDurable(long position) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (position <= durablePosition) {
+                return;
+            }
+            if (closing) {
+                throw new IllegalStateException("Group commit log is closed");
+            }
+            if (pendingRecords == 0) {
+                firstPendingNanos = now;
+            }
+            pendingRecords++;
+            pendingArrivalOffsetNanos += now - firstPendingNanos;
+            // The flusher wakes for the first record to start the wait, and again once the batch is full
+            if (pendingRecords == 1 || pendingRecords >= maxBatchSize) {
+                batchReady.signal();
+            }
+
+            while (durablePosition < position && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (durablePosition < position) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+        org.gerry.solution.Metrics.GROUP_COMMIT.recordWait(now);
+    }
+
+    // This log's counters; the process-wide ones, over every log, are Metrics.GROUP_COMMIT
+    public Metrics getMetrics() {
+        lock.lock();
+        try {
+            return new Metrics(groupCount, recordCount, largestBatch, totalLatencyNanos, maxLatencyNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Forces whatever is still waiting and stops the flusher. The journal itself is left open.
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closing = true;
+            batchReady.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                while (pendingRecords == 0 && !closing) {
+                    batchReady.awaitUninterruptibly();
+                }
+                if (pendingRecords == 0) {
+                    return;
+                }
+
+                // Give the group until maxWait after its first record to fill up
+                long deadline = firstPendingNanos + maxWaitNanos;
+                long remaining;
+                while (pendingRecords < maxBatchSize && !closing
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        batchReady.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        closing = true;
+                    }
+                }
+
+                // Everything appended so far goes into this force, including records whose writers have not
+                // started waiting yet; they will find their position already durable
+                int batch = pendingRecords;
+                long arrivalOffsetNanos = pendingArrivalOffsetNanos;
+                long firstNanos = firstPendingNanos;
+                pendingRecords = 0;
+                pendingArrivalOffsetNanos = 0;
+                long target = journal.size();
+
+                lock.unlock();
+                RuntimeException error = null;
+                try {
+                    journal.force(target);
+                } catch (RuntimeException e) {
+                    error = e;
+                } catch (Error e) {
+                    // The flusher stops either way; writers must hear about it rather than wait forever
+                    error = new IllegalStateException("Journal force failed: " + e, e);
+                } finally {
+                    lock.lock();
+                }
+
+                if (error != null) {
+                    failure = error;
+                    durable.signalAll();
+                    return;
+                }
+                long now = System.nanoTime();
+                durablePosition = Math.max(durablePosition, target);
+                groupCount++;
+                recordCount += batch;
+                largestBatch = Math.max(largestBatch, batch);
+                totalLatencyNanos += batch * (now - firstNanos) - arrivalOffsetNanos;
+                maxLatencyNanos = Math.max(maxLatencyNanos, now - firstNanos);
+                org.gerry.solution.Metrics.GROUP_COMMIT.recordGroup(batch);
+                durable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Commit counters since the log was started. Latency runs from a writer starting to wait to its group
+    // being durable.
+    public record Metrics(long groupCount, long recordCount, int largestBatch, long totalLatencyNanos,
+                          long maxLatencyNanos) {
+        public double averageBatchSize() {
+            return groupCount == 0 ? 0 : (double) recordCount / groupCount;
+        }
+
+        public double averageLatencyMicros() {
+            return recordCount == 0 ? 0 : totalLatencyNanos / 1_000.0 / recordCount;
+        }
+
+        public double maxLatencyMicros() {
+            return maxLatencyNanos / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.gerry.solution;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Journal group commit across every GroupCommitLog in the process: how many forces were made, how many records
+// each one covered, and how long writers waited for their record to be durable. Only writers that had to wait
+// are timed; one whose record an earlier force already covered returns at once and is not counted.
+public class GroupCommitMetrics implements GroupCommitMetricsMXBean {
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    GroupCommitMetrics() {
+    }
+
+    void recordGroup(int batch) {
+        groups.increment();
+        records.add(batch);
+        largestBatch.accumulateAndGet(batch, Math::max);
+    }
+
+    void recordWait(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getGroupCount() {
+        return groups.sum();
+    }
+
+    @Override
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        long groupCount = groups.sum();
+        return groupCount == 0 ? 0 : (double) records.sum() / groupCount;
+    }
+
+    @Override
+    public int getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latency.getMeanNanos() / 1_000;
+    }
+
+    @Override
+    public double getP50LatencyMicros() {
+        return latency.getValueAtPercentile(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP99LatencyMicros() {
+        return latency.getValueAtPercentile(99) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return latency.getMaxNanos() / 1_000.0;
+    }
+}
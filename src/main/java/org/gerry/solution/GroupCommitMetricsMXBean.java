@@ -0,0 +1,20 @@
+package org.gerry.solution;
+
+// JMX view of the journal group commit, registered as org.gerry.solution:type=GroupCommitMetrics
+public interface GroupCommitMetricsMXBean {
+    long getGroupCount();
+
+    long getRecordCount();
+
+    double getAverageBatchSize();
+
+    int getLargestBatch();
+
+    double getMeanLatencyMicros();
+
+    double getP50LatencyMicros();
+
+    double getP99LatencyMicros();
+
+    double getMaxLatencyMicros();
+}
@@ -0,0 +1,294 @@
+package org.gerry.solution;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.RuleChangePropagator.InterestChange;
+import org.gerry.solution.RuleChangePropagator.Report;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Local HTTP interface to the ledger on the JDK's built-in server, with every request handled on its own virtual
+// thread. Request bodies are the same text lines the menu prompts take, validated by the same code; responses
+// are JSON.
+//
+//     POST /transactions          <Date> <Account> <Type> <Amount>
+//     POST /transactions/batch    one transaction per line; each line is accepted or rejected on its own
+//     POST /rules                 <Date> <RuleId> <Rate in %>, added or replacing the rule for that date
+//     GET  /rules
+//     GET  /statements/<Account>?month=<Year><Month>
+//                                 or ?from=<Year><Month>&to=<Year><Month>, or ?ytd=<Year><Month>
+//     GET  /metrics               command counts, rejections, latencies and group commit, as the periodic JSON report
+//
+// Rejected input is answered with 400 (malformed), 404 (unknown account) or 422 (refused by the ledger) and
+// {"reason":..., "error":...}.
+public class HttpApiServer implements Closeable {
+    private static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+    private static final int BACKLOG = 4096;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final Ledger ledger;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private HttpApiServer(Ledger ledger, HttpServer server, ExecutorService executor) {
+        this.ledger = ledger;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    // Starts serving on the given address; port 0 picks a free port
+    public static HttpApiServer start(Ledger ledger, InetSocketAddress address) throws IOException {
+        // The server writes the headers and the body of a response separately; without TCP_NODELAY the body
+        // waits for the client's delayed ACK of the headers, adding tens of milliseconds to every response.
+        // The server reads this once, when its first instance is created.
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        HttpApiServer api = new HttpApiServer(ledger, server, executor);
+        server.createContext("/transactions", exchange -> api.handle(exchange, api::postTransaction));
+        server.createContext("/transactions/batch", exchange -> api.handle(exchange, api::postTransactionBatch));
+        server.createContext("/rules", exchange -> api.handle(exchange, api::rules));
+        server.createContext("/statements/", exchange -> api.handle(exchange, api::getStatement));
+        server.createContext("/metrics", exchange -> api.handle(exchange, api::getMetrics));
+        server.start();
+        return api;
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Stops accepting requests and gives those in flight a second to finish
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    private Response postTransaction(HttpExchange exchange) throws IOException, TransactionRejectedException {
+        requireMethod(exchange, "POST");
+        Transaction transaction = InputTransaction.recordTransaction(readBody(exchange), ledger);
+        StringBuilder json = new StringBuilder(128);
+        appendTransaction(json, transaction);
+        return new Response(201, json.append('\n').toString());
+    }
+
+    private Response postTransactionBatch(HttpExchange exchange) throws IOException, TransactionRejectedException {
+        requireMethod(exchange, "POST");
+        String body = readBody(exchange);
+        LineParser parser = LineParser.get();
+        StringBuilder results = new StringBuilder(body.length() * 2);
+        int accepted = 0;
+        int rejected = 0;
+        int lineNumber = 0;
+        for (int from = 0; from < body.length(); ) {
+            int to = body.indexOf('\n', from);
+            if (to < 0) {
+                to = body.length();
+            }
+            lineNumber++;
+            CharSequence line = body.subSequence(from, to);
+            from = to + 1;
+            if (line.toString().isBlank()) {
+                continue;
+            }
+
+            results.append(accepted + rejected == 0 ? "" : ",").append("{\"line\":").append(lineNumber).append(',');
+            try {
+                Transaction transaction = InputTransaction.recordTransaction(parser, line, ledger);
+                results.append("\"transaction\":");
+                appendTransaction(results, transaction);
+                accepted++;
+            } catch (TransactionRejectedException e) {
+                appendRejection(results, e);
+                rejected++;
+            }
+            results.append('}');
+        }
+        return new Response(200, "{\"accepted\":" + accepted + ",\"rejected\":" + rejected + ",\"results\":["
+                + results + "]}\n");
+    }
+
+    private Response rules(HttpExchange exchange) throws IOException, TransactionRejectedException {
+        if (exchange.getRequestMethod().equals("GET")) {
+            StringBuilder json = new StringBuilder("{\"rules\":[");
+            boolean first = true;
+            for (InterestRule rule : ledger.getInterestRules()) {
+                json.append(first ? "" : ",");
+                appendRule(json, rule);
+                first = false;
+            }
+            return new Response(200, json.append("]}\n").toString());
+        }
+
+        requireMethod(exchange, "POST");
+        Report report = DefineInterestRules.defineRuleAndPropagate(LineParser.get(), readBody(exchange), ledger);
+        InterestRule rule = report.rule();
+        StringBuilder json = new StringBuilder("{\"rule\":");
+        appendRule(json, rule);
+        json.append(",\"replaced\":");
+        if (report.replaced() == null) {
+            json.append("null");
+        } else {
+            appendRule(json, report.replaced());
+        }
+        json.append(",\"recomputed\":").append(report.recomputed()).append(",\"changes\":[");
+        for (int i = 0; i < report.changes().size(); i++) {
+            InterestChange change = report.changes().get(i);
+            json.append(i == 0 ? "" : ",").append("{\"account\":");
+            StatementRenderer.appendJsonString(json, change.accountId());
+            json.append(",\"month\":\"")
+                    .append(TransactionIds.formatDate((int) change.month().atDay(1).toEpochDay()), 0, 6)
+                    .append("\",\"oldInterest\":").append(change.oldInterest().toPlainString())
+                    .append(",\"newInterest\":").append(change.newInterest().toPlainString()).append('}');
+        }
+        return new Response(201, json.append("]}\n").toString());
+    }
+
+    private Response getStatement(HttpExchange exchange) throws IOException, TransactionRejectedException {
+        requireMethod(exchange, "GET");
+        String accountId = URLDecoder.decode(exchange.getRequestURI().getRawPath().substring("/statements/".length()),
+                StandardCharsets.UTF_8);
+        String month = queryParameter(exchange, "month");
+        String ytd = queryParameter(exchange, "ytd");
+        String from = queryParameter(exchange, "from");
+        String to = queryParameter(exchange, "to");
+        String period;
+        if (month != null) {
+            period = month;
+        } else if (ytd != null) {
+            period = "YTD " + ytd;
+        } else if (from != null && to != null) {
+            period = from + "-" + to;
+        } else {
+            throw new TransactionRejectedException(RejectReason.INVALID_FORMAT,
+                    "Give month=<Year><Month>, ytd=<Year><Month> or from=<Year><Month>&to=<Year><Month>.");
+        }
+        if (accountId.isEmpty() || accountId.chars().anyMatch(Character::isWhitespace)) {
+            throw new TransactionRejectedException(RejectReason.ACCOUNT_NOT_FOUND);
+        }
+
+        StringWriter json = new StringWriter();
+        StatementRenderer renderer = StatementRenderer.create(StatementRenderer.Format.JSON, json);
+        PrintStatement.renderStatement(LineParser.get(), accountId + " " + period, ledger, renderer);
+        renderer.flush();
+        return new Response(200, json.toString());
+    }
+
+    private Response getMetrics(HttpExchange exchange) {
+        requireMethod(exchange, "GET");
+        return new Response(200, Metrics.get().getJsonReport() + "\n");
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        Response response;
+        try {
+            response = endpoint.serve(exchange);
+        } catch (TransactionRejectedException e) {
+            StringBuilder json = new StringBuilder("{");
+            appendRejection(json, e);
+            response = new Response(statusOf(e.getReason()), json.append("}\n").toString());
+        } catch (MethodNotAllowedException e) {
+            response = new Response(405, "{\"error\":\"Method not allowed\"}\n");
+        } catch (IOException | RuntimeException e) {
+            StringBuilder json = new StringBuilder("{\"error\":");
+            StatementRenderer.appendJsonString(json, String.valueOf(e.getMessage()));
+            response = new Response(500, json.append("}\n").toString());
+        }
+
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static int statusOf(RejectReason reason) {
+        return switch (reason) {
+            case FIRST_WITHDRAWAL, INSUFFICIENT_FUNDS -> 422;
+            case ACCOUNT_NOT_FOUND -> 404;
+            default -> 400;
+        };
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new MethodNotAllowedException();
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException, TransactionRejectedException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new TransactionRejectedException(RejectReason.INVALID_FORMAT, "Request body is too large.");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void appendTransaction(StringBuilder json, Transaction transaction) {
+        json.append("{\"transactionId\":");
+        StatementRenderer.appendJsonString(json, transaction.transactionId());
+        json.append(",\"date\":\"").append(TransactionIds.formatDate((int) transaction.date().toEpochDay()));
+        json.append("\",\"account\":");
+        StatementRenderer.appendJsonString(json, transaction.accountId());
+        json.append(",\"type\":\"").append(transaction.type()).append("\",\"amount\":")
+                .append(transaction.amount().toPlainString()).append('}');
+    }
+
+    private static void appendRule(StringBuilder json, InterestRule rule) {
+        json.append("{\"date\":\"").append(TransactionIds.formatDate((int) rule.effectiveDate().toEpochDay()));
+        json.append("\",\"ruleId\":");
+        StatementRenderer.appendJsonString(json, rule.ruleId());
+        json.append(",\"rate\":").append(rule.rate().toPlainString()).append('}');
+    }
+
+    private static void appendRejection(StringBuilder json, TransactionRejectedException e) {
+        json.append("\"reason\":\"").append(e.getReason().name()).append("\",\"error\":");
+        StatementRenderer.appendJsonString(json, e.getMessage());
+    }
+
+    private interface Endpoint {
+        Response serve(HttpExchange exchange) throws IOException, TransactionRejectedException;
+    }
+
+    private record Response(int status, String body) {
+    }
+
+    private static class MethodNotAllowedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MethodNotAllowedException() {
+            super(null, null, false, false);
+        }
+    }
+}
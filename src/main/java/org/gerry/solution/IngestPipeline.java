@@ -0,0 +1,289 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BulkTransactionImport.ImportSummary;
+import org.gerry.solution.InputTransaction.ParsedTransaction;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Staged import of transaction lines, with the stages connected by one bounded ring of reusable slots:
+//
+//     reader -> parsers (N threads) -> apply shards (M threads) -> collector
+//
+// The reader (the calling thread) puts each non-blank line in the next slot. Parser k validates the slots whose
+// sequence number is k mod N, which is every check that does not depend on a balance, and interns the account
+// id. Each account belongs to one apply shard (its handle mod M), and a shard applies its accounts' slots in
+// sequence order, so the transactions of an account are applied one at a time in file order and the
+// first-withdrawal and balance checks see exactly what they would see in a sequential import. The collector
+// then walks the slots in order, waits for each accepted transaction to be durable when group commit is on, and
+// tallies the summary, so rejections are listed in line order.
+//
+// Every stage publishes the last sequence it has finished in its own padded cursor. A stage waits on the cursors
+// of the stages before it, and the reader waits for the collector when the ring is full, which holds the input
+// back rather than buffering it. Waiting spins briefly, then yields, then parks.
+//
+// Transaction ids are still unique and numbered 1, 2, ... per date, but which account gets which number on a
+// date now follows the order the shards applied them rather than the file order.
+public class IngestPipeline {
+    // Cursors are this many longs apart so that no two share a cache line
+    private static final int PAD = 16;
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long PARK_NANOS = 20_000;
+
+    private final Ledger ledger;
+    private final int parserThreads;
+    private final int applyShards;
+    private final int mask;
+    private final Slot[] ring;
+
+    // Cursor of the reader, the collector, the parsers and then the shards
+    private final AtomicLongArray cursors;
+    private final int collectorCursor;
+    private final int firstParserCursor;
+    private final int firstShardCursor;
+
+    // Sequence after the last line, once the reader has reached the end of the input
+    private volatile long end;
+    private volatile Throwable failure;
+
+    public IngestPipeline(Ledger ledger, int parserThreads, int applyShards, int capacity) {
+        if (parserThreads < 1 || applyShards < 1) {
+            throw new IllegalArgumentException("At least one parser thread and one apply shard are needed");
+        }
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least 2");
+        }
+        this.ledger = ledger;
+        this.parserThreads = parserThreads;
+        this.applyShards = applyShards;
+        this.mask = capacity - 1;
+        this.ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot();
+        }
+        this.collectorCursor = PAD;
+        this.firstParserCursor = 2 * PAD;
+        this.firstShardCursor = (2 + parserThreads) * PAD;
+        this.cursors = new AtomicLongArray((3 + parserThreads + applyShards) * PAD);
+    }
+
+    // Imports every non-blank line of the input. Can be run once per pipeline.
+    public ImportSummary run(Reader input) throws IOException {
+        for (int i = 0; i < cursors.length(); i += PAD) {
+            cursors.set(i, -1);
+        }
+        end = Long.MAX_VALUE;
+        ImportSummary summary = new ImportSummary();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int k = 0; k < parserThreads; k++) {
+            int parser = k;
+            threads.add(Thread.ofPlatform().daemon().name("ingest-parser-" + k).start(() -> parse(parser)));
+        }
+        for (int j = 0; j < applyShards; j++) {
+            int shard = j;
+            threads.add(Thread.ofPlatform().daemon().name("ingest-apply-" + j).start(() -> apply(shard)));
+        }
+        threads.add(Thread.ofPlatform().daemon().name("ingest-collector").start(() -> collect(summary)));
+
+        try {
+            read(input instanceof BufferedReader br ? br : new BufferedReader(input, 1 << 16));
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        } finally {
+            for (Thread thread : threads) {
+                joinUninterruptibly(thread);
+            }
+        }
+
+        Throwable failed = failure;
+        if (failed instanceof IOException e) {
+            throw e;
+        }
+        if (failed instanceof UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (failed instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failed instanceof Error e) {
+            throw e;
+        }
+        return summary;
+    }
+
+    private void read(BufferedReader lines) throws IOException {
+        long sequence = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            // Wait for the collector to free the slot this line goes into
+            if (!awaitCursor(collectorCursor, sequence - ring.length)) {
+                return;
+            }
+            Slot slot = ring[(int) sequence & mask];
+            slot.line = line;
+            slot.lineNumber = lineNumber;
+            cursors.setRelease(0, sequence++);
+        }
+        end = sequence;
+    }
+
+    private void parse(int parser) {
+        LineParser lineParser = new LineParser();
+        AccountDirectory accounts = ledger.getAccounts();
+        for (long sequence = parser; awaitCursor(0, sequence); sequence += parserThreads) {
+            Slot slot = ring[(int) sequence & mask];
+            slot.startNanos = System.nanoTime();
+            slot.reason = null;
+            slot.journalEnd = 0;
+            try {
+                InputTransaction.parse(lineParser, slot.line, accounts, true, slot.parsed);
+                slot.shard = slot.parsed.accountHandle % applyShards;
+            } catch (TransactionRejectedException e) {
+                reject(slot, e);
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            cursors.setRelease(firstParserCursor + parser * PAD, sequence);
+        }
+    }
+
+    private void apply(int shard) {
+        int cursor = firstShardCursor + shard * PAD;
+        for (long sequence = 0; awaitCursor(parserCursor(sequence), sequence); sequence++) {
+            Slot slot = ring[(int) sequence & mask];
+            if (slot.reason == null && slot.shard == shard) {
+                ParsedTransaction parsed = slot.parsed;
+                try {
+                    slot.journalEnd = ledger.applyTransaction(parsed.epochDay, parsed.accountHandle, parsed.type,
+                            parsed.cents);
+                    Metrics.TRANSACTION.record(slot.startNanos);
+                } catch (TransactionRejectedException e) {
+                    reject(slot, e);
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+            }
+            cursors.setRelease(cursor, sequence);
+        }
+    }
+
+    private void collect(ImportSummary summary) {
+        long shardsDone = -1;
+        long durable = 0;
+        for (long sequence = 0; awaitCursor(parserCursor(sequence), sequence); sequence++) {
+            // Every shard has to be past the slot before it can be reused, not only the one that applied it
+            for (int spins = 0; shardsDone < sequence; spins++) {
+                shardsDone = slowestShard();
+                if (shardsDone < sequence && !backoff(spins)) {
+                    return;
+                }
+            }
+
+            Slot slot = ring[(int) sequence & mask];
+            if (slot.reason != null) {
+                summary.reject(slot.lineNumber, slot.reason, slot.message);
+            } else {
+                if (slot.journalEnd > durable) {
+                    ledger.awaitDurable(slot.journalEnd);
+                    durable = slot.journalEnd;
+                }
+                summary.accept();
+            }
+            slot.line = null;
+            cursors.setRelease(collectorCursor, sequence);
+        }
+    }
+
+    private int parserCursor(long sequence) {
+        return firstParserCursor + (int) (sequence % parserThreads) * PAD;
+    }
+
+    private long slowestShard() {
+        long slowest = Long.MAX_VALUE;
+        for (int j = 0; j < applyShards; j++) {
+            slowest = Math.min(slowest, cursors.get(firstShardCursor + j * PAD));
+        }
+        return slowest;
+    }
+
+    // Waits until the cursor reaches the sequence. Returns false instead when the input ends before it or a stage
+    // failed.
+    private boolean awaitCursor(int cursor, long sequence) {
+        for (int spins = 0; cursors.get(cursor) < sequence; spins++) {
+            if (sequence >= end || !backoff(spins)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean backoff(int spins) {
+        if (failure != null) {
+            return false;
+        }
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else if (spins < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return true;
+    }
+
+    private static void reject(Slot slot, TransactionRejectedException e) {
+        slot.reason = e.getReason();
+        slot.message = e.getMessage();
+        Metrics.TRANSACTION.rejected(e.getReason());
+        Metrics.TRANSACTION.record(slot.startNanos);
+    }
+
+    private synchronized void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Slot {
+        // Written by the reader
+        String line;
+        long lineNumber;
+        // Written by the parser
+        final ParsedTransaction parsed = new ParsedTransaction();
+        long startNanos;
+        int shard;
+        // Written by the parser or the apply shard
+        RejectReason reason;
+        String message;
+        long journalEnd;
+    }
+}
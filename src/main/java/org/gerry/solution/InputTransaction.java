@@ -1,19 +1,10 @@
 package org.gerry.solution;
 
 import org.gerry.solution.BankAccountInterest.Transaction;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
 
 public class InputTransaction {
-    public static void handleTransactionInput(Scanner scanner, Map<String, List<Transaction>> accounts,
-                                              Map<String, Integer> transactionCountByDate) {
+    public static void handleTransactionInput(Scanner scanner, Ledger ledger) {
         System.out.println("\nPlease enter transaction details in <Date> <Account> <Type> <Amount> format");
         System.out.println("(or enter blank to go back to main menu):");
         System.out.print("> ");
@@ -23,95 +14,91 @@ public class InputTransaction {
             return;
         }
 
-        String[] parts = input.split("\\s+");
-        if (parts.length != 4) {
-            System.out.println("Invalid format. Please try again.");
-            return;
+        try {
+            Transaction transaction = recordTransaction(input, ledger);
+
+            // Display the account statement
+            String accountId = transaction.accountId();
+            StatementRenderer renderer = StatementRenderer.create(StatementRenderer.Format.TEXT, System.out);
+            renderer.renderTransactions(accountId, ledger.getAccount(accountId).getTransactions());
+            renderer.flush();
+        } catch (TransactionRejectedException e) {
+            System.out.println(e.getMessage());
+        } catch (Exception e) {
+            System.out.println("Error processing transaction: " + e.getMessage());
         }
+    }
 
-        try {
-            // Parse date
-            LocalDate date;
-            try {
-                date = LocalDate.parse(parts[0], DateTimeFormatter.ofPattern("yyyyMMdd"));
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Use YYYYMMdd format.");
-                return;
-            }
+    // Validates a <Date> <Account> <Type> <Amount> line and appends it to the account with the next id for its date
+    public static Transaction recordTransaction(CharSequence input, Ledger ledger)
+            throws TransactionRejectedException {
+        return recordTransaction(LineParser.get(), input, ledger);
+    }
 
-            // Parse account
-            String accountId = parts[1];
+    public static Transaction recordTransaction(LineParser parser, CharSequence input, Ledger ledger)
+            throws TransactionRejectedException {
+        long startNanos = System.nanoTime();
+        try {
+            return parseAndRecord(parser, input, ledger);
+        } catch (TransactionRejectedException e) {
+            Metrics.TRANSACTION.rejected(e.getReason());
+            throw e;
+        } finally {
+            Metrics.TRANSACTION.record(startNanos);
+        }
+    }
 
-            // Parse transaction type
-            char type = parts[2].toUpperCase().charAt(0);
-            if (type != 'D' && type != 'W') {
-                System.out.println("Invalid transaction type. Use D for deposit or W for withdrawal.");
-                return;
-            }
+    private static Transaction parseAndRecord(LineParser parser, CharSequence input, Ledger ledger)
+            throws TransactionRejectedException {
+        ParsedTransaction parsed = new ParsedTransaction();
+        parse(parser, input, ledger.getAccounts(), false, parsed);
 
-            // Parse amount
-            BigDecimal amount;
-            try {
-                amount = new BigDecimal(parts[3]).setScale(2, RoundingMode.HALF_UP);
-                if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                    System.out.println("Amount must be greater than zero.");
-                    return;
-                }
-            } catch (NumberFormatException e) {
-                System.out.println("Invalid amount format.");
-                return;
-            }
+        // The balance checks and the id allocation happen atomically inside the ledger
+        return ledger.recordTransaction(parsed.epochDay, parsed.accountHandle, parsed.type, parsed.cents);
+    }
 
-            // Check if it's a new account or if withdrawal is valid
-            if (!accounts.containsKey(accountId)) {
-                if (type == 'W') {
-                    System.out.println("First transaction for an account cannot be a withdrawal.");
-                    return;
-                }
-                accounts.put(accountId, new ArrayList<>());
-            } else if (type == 'W') {
-                // Check if withdrawal would make balance negative
-                BigDecimal currentBalance = calculateBalance(accounts.get(accountId));
-                if (currentBalance.compareTo(amount) < 0) {
-                    System.out.println("Insufficient funds. Current balance: " + currentBalance);
-                    return;
-                }
-            }
+    // Checks everything about a <Date> <Account> <Type> <Amount> line that does not depend on the account's
+    // balance. Only a deposit brings in an account id that has not been seen before, unless internWithdrawals
+    // is set for a pipeline in which an earlier deposit to the account may not have been parsed yet.
+    static void parse(LineParser parser, CharSequence input, AccountDirectory accounts, boolean internWithdrawals,
+                      ParsedTransaction out) throws TransactionRejectedException {
+        if (parser.tokenize(input) != 4) {
+            throw new TransactionRejectedException(RejectReason.INVALID_FORMAT);
+        }
 
-            // Generate transaction ID
-            String dateStr = date.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-            int count = transactionCountByDate.getOrDefault(dateStr, 0) + 1;
-            transactionCountByDate.put(dateStr, count);
-            String transactionId = dateStr + "-" + String.format("%02d", count);
+        // Parse date
+        long epochDay = parser.parseEpochDay(0);
+        if (epochDay == LineParser.INVALID) {
+            throw new TransactionRejectedException(RejectReason.INVALID_DATE);
+        }
 
-            // Create and add the transaction
-            Transaction transaction = new Transaction(date, accountId, type, amount, transactionId);
-            accounts.get(accountId).add(transaction);
+        // Parse transaction type
+        char type = parser.upperFirstChar(2);
+        if (type != 'D' && type != 'W') {
+            throw new TransactionRejectedException(RejectReason.INVALID_TYPE);
+        }
 
-            // Display the account statement
-            System.out.println("\nAccount: " + accountId);
-            System.out.println("| Date     | Txn Id      | Type | Amount |");
-            for (Transaction t : accounts.get(accountId)) {
-                System.out.printf("| %s | %-10s | %-4s | %6.2f |\n",
-                        t.date().format(DateTimeFormatter.ofPattern("yyyyMMdd")),
-                        t.transactionId(),
-                        String.valueOf(t.type()),
-                        t.amount());
-            }
-        } catch (Exception e) {
-            System.out.println("Error processing transaction: " + e.getMessage());
+        // Parse amount
+        long cents = parser.parseCents(3);
+        if (cents == LineParser.INVALID) {
+            throw new TransactionRejectedException(RejectReason.INVALID_AMOUNT);
+        }
+        if (cents <= 0) {
+            throw new TransactionRejectedException(RejectReason.NON_POSITIVE_AMOUNT);
         }
+
+        // Parse account
+        out.accountHandle = parser.accountHandle(1, accounts, type != 'W' || internWithdrawals);
+        out.epochDay = (int) epochDay;
+        out.type = type;
+        out.cents = cents;
     }
 
-    private static BigDecimal calculateBalance(List<Transaction> transactions) {
-        BigDecimal balance = BigDecimal.ZERO;
-        for (Transaction t : transactions) {
-            if (t.type() == 'D') {
-                balance = balance.add(t.amount());
-            } else if (t.type() == 'W') {
-                balance = balance.subtract(t.amount());
-            }
-        }
-        return balance;
+    // Fields of a line that passed parse
+    static class ParsedTransaction {
+        int epochDay;
+        int accountHandle;
+        char type;
+        long cents;
     }
-}
\ No newline at end of file
+}
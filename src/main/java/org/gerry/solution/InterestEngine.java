@@ -0,0 +1,145 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.List;
+
+public class InterestEngine {
+    static final int DAYS_IN_YEAR = 365;
+    static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Walks the account's end-of-day balance checkpoints and the rule timeline together in a single pass.
+    // Each period runs from one significant date (month start, transaction date, rule effective date) to the
+    // day before the next one, and the last period runs up to the month end, exactly as the per-period rescan
+    // used to do.
+    //
+    // Balances are long cents and period interest is accumulated in units of 0.0001, which is exactly the
+    // 4-decimal HALF_UP rounding the BigDecimal version applied, so the result matches it bit for bit.
+    //
+    // Runs under the account's read lock so the checkpoints cannot move while they are being walked.
+    public static BigDecimal calculateInterest(Account account, RuleTimeline interestRules,
+                                               int year, int month) {
+        long[] interestCents = account.withReadLock(() ->
+                calculateMonthlyInterestLocked(account, interestRules, YearMonth.of(year, month), 1));
+        return Money.fromCents(interestCents[0]);
+    }
+
+    // Interest of each of the given number of months starting with the first one, from one forward sweep over
+    // the checkpoints and rules of the whole range. Each month is rounded on its own, so every figure is the same
+    // as calculateInterest gives for that month.
+    public static BigDecimal[] calculateMonthlyInterest(Account account, RuleTimeline interestRules,
+                                                        YearMonth first, int months) {
+        long[] interestCents = account.withReadLock(() ->
+                calculateMonthlyInterestLocked(account, interestRules, first, months));
+        BigDecimal[] interest = new BigDecimal[months];
+        for (int i = 0; i < months; i++) {
+            interest[i] = Money.fromCents(interestCents[i]);
+        }
+        return interest;
+    }
+
+    private static long[] calculateMonthlyInterestLocked(Account account, RuleTimeline interestRules,
+                                                         YearMonth first, int months) {
+        LocalDate rangeStart = first.atDay(1);
+        LocalDate rangeEnd = first.plusMonths(months - 1).atEndOfMonth();
+        int startDay = (int) rangeStart.toEpochDay();
+
+        int checkpoint = account.firstCheckpointOnOrAfter(startDay);
+        int checkpointCount = account.getCheckpointCount();
+        Iterator<InterestRule> ruleChanges = interestRules.getRulesForPeriod(rangeStart, rangeEnd).iterator();
+        InterestRule applicableRule = ruleChanges.next();
+        InterestRule nextRule = ruleChanges.hasNext() ? ruleChanges.next() : null;
+
+        long eodBalanceCents = account.getBalanceCentsBeforeDay(startDay);
+        long[] interestCents = new long[months];
+        long periods = 0;
+
+        int monthStart = startDay;
+        for (int m = 0; m < months; m++) {
+            int endDay = (int) first.plusMonths(m).atEndOfMonth().toEpochDay();
+            long totalUnits = 0;
+
+            int periodStart = monthStart;
+            while (true) {
+                // Bring the balance and the rule in force up to the start of this period
+                while (checkpoint < checkpointCount && account.getCheckpointDay(checkpoint) <= periodStart) {
+                    eodBalanceCents = account.getCheckpointCents(checkpoint++);
+                }
+                while (nextRule != null && nextRule.effectiveDate().toEpochDay() <= periodStart) {
+                    applicableRule = nextRule;
+                    nextRule = ruleChanges.hasNext() ? ruleChanges.next() : null;
+                }
+
+                // The next significant date is the earliest upcoming transaction or rule change in the month
+                int nextDay = endDay;
+                if (checkpoint < checkpointCount && account.getCheckpointDay(checkpoint) < nextDay) {
+                    nextDay = account.getCheckpointDay(checkpoint);
+                }
+                if (nextRule != null && nextRule.effectiveDate().toEpochDay() < nextDay) {
+                    nextDay = (int) nextRule.effectiveDate().toEpochDay();
+                }
+                boolean isLastPeriod = nextDay == endDay;
+                int periodEnd = isLastPeriod ? endDay : nextDay - 1;
+
+                periods++;
+                if (applicableRule != null) {
+                    totalUnits += periodInterestUnits(eodBalanceCents, applicableRule.rate(),
+                            periodEnd - periodStart + 1);
+                }
+
+                if (isLastPeriod) {
+                    break;
+                }
+                periodStart = nextDay;
+            }
+
+            interestCents[m] = Money.divideHalfUp(Money.divideHalfUp(totalUnits, DAYS_IN_YEAR), 100);
+            monthStart = endDay + 1;
+        }
+        Metrics.INTEREST_MONTHS.add(months);
+        Metrics.INTEREST_PERIODS.add(periods);
+        return interestCents;
+    }
+
+    public static BigDecimal calculateInterest(List<Transaction> transactions,
+                                               RuleTimeline interestRules,
+                                               int year, int month) {
+        Account account = new Account(null);
+        for (Transaction t : transactions) {
+            account.append((int) t.date().toEpochDay(), t.type(), Money.toCents(t.amount()), 0);
+        }
+        return calculateInterest(account, interestRules, year, month);
+    }
+
+    // balance * rate% * days in units of 0.0001, rounded HALF_UP. With the balance in cents this is just
+    // balanceCents * days * rate, so it stays in long arithmetic unless the rate has a long tail of decimals
+    // or the product overflows.
+    static long periodInterestUnits(long balanceCents, BigDecimal rate, int days) {
+        if (rate.scale() >= 0 && rate.scale() < POWERS_OF_TEN.length && rate.unscaledValue().bitLength() < 63) {
+            try {
+                long product = Math.multiplyExact(Math.multiplyExact(balanceCents, (long) days),
+                        rate.unscaledValue().longValue());
+                return Money.divideHalfUp(product, POWERS_OF_TEN[rate.scale()]);
+            } catch (ArithmeticException e) {
+                // Fall through to the exact BigDecimal path
+            }
+        }
+        return BigDecimal.valueOf(balanceCents)
+                .multiply(rate)
+                .multiply(BigDecimal.valueOf(days))
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
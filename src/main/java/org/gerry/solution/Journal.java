@@ -0,0 +1,330 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+// Append-only journal of accepted transactions and interest rule changes, written through a memory-mapped file.
+//
+// The file starts with an 8-byte header (magic and version), followed by records of the form
+//     [int length][byte kind][payload][int crc32c of kind and payload]
+// where length counts the kind and payload bytes. The mapping is grown ahead of the data, so the unused tail of
+// the file is zeros and a zero length marks the end. A record cut short by a crash, or one whose checksum does
+// not match, is treated as the end of the journal and truncated away when the journal is opened.
+//
+// Writes land in the page cache as soon as they are copied into the mapping, so they survive the process dying;
+// force() is needed to make them survive the machine going down. GroupCommitLog batches those forces.
+public class Journal implements Closeable {
+    private static final int MAGIC = 0x4241494A; // "BAIJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int INITIAL_MAPPING = 1 << 20;
+    private static final int MAX_MAPPING = Integer.MAX_VALUE - 8;
+
+    static final byte TRANSACTION = 1;
+    static final byte RULE = 2;
+
+    // kind, epoch day, type, cents, sequence, account id length
+    private static final int TRANSACTION_FIXED_SIZE = 1 + 4 + 1 + 8 + 4 + 2;
+    private static final int MAX_TEXT_LENGTH = 0xFFFF;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private MappedByteBuffer buffer;
+    private int position;
+    // Everything before this offset has been forced to the storage device
+    private int forcedPosition;
+    private final long truncatedBytes;
+    private boolean closed;
+
+    private Journal(Path path, FileChannel channel, MappedByteBuffer buffer, int position, long truncatedBytes) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.position = position;
+        this.forcedPosition = position;
+        this.truncatedBytes = truncatedBytes;
+    }
+
+    // Opens the journal, creating it if needed, and cuts off any torn or corrupt tail so appends continue right
+    // after the last intact record
+    public static Journal open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long fileSize = channel.size();
+            if (fileSize > MAX_MAPPING) {
+                throw new IOException("Journal is too large to map: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(INITIAL_MAPPING, fileSize));
+            if (fileSize < HEADER_SIZE) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                return new Journal(path, channel, buffer, HEADER_SIZE, 0);
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a transaction journal: " + path);
+            }
+
+            int end = scanToEnd(buffer, (int) fileSize);
+            long truncated = 0;
+            for (int i = end; i < fileSize; i++) {
+                if (buffer.get(i) != 0) {
+                    truncated = fileSize - end;
+                    break;
+                }
+            }
+            if (truncated > 0) {
+                // Zero the torn tail so nothing after the next append can be mistaken for a record
+                buffer.put(end, new byte[(int) (fileSize - end)]);
+                buffer.force();
+            }
+            return new Journal(path, channel, buffer, end, truncated);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // Bytes of torn or corrupt data dropped from the tail when the journal was opened
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public synchronized long size() {
+        return position;
+    }
+
+    // Returns the journal size after the record, which is what has to be forced for it to be durable
+    public synchronized long appendTransaction(int epochDay, String accountId, char type, long cents, int sequence)
+            throws IOException {
+        byte[] nonAscii = isAscii(accountId) ? null : accountId.getBytes(StandardCharsets.UTF_8);
+        int idLength = nonAscii == null ? accountId.length() : nonAscii.length;
+        if (idLength > MAX_TEXT_LENGTH) {
+            throw new IOException("Account id is too long to journal");
+        }
+
+        int start = beginRecord(TRANSACTION_FIXED_SIZE + idLength);
+        int at = start + 4;
+        buffer.put(at, TRANSACTION);
+        buffer.putInt(at + 1, epochDay);
+        buffer.put(at + 5, (byte) type);
+        buffer.putLong(at + 6, cents);
+        buffer.putInt(at + 14, sequence);
+        buffer.putShort(at + 18, (short) idLength);
+        putText(at + 20, accountId, nonAscii);
+        endRecord(start, TRANSACTION_FIXED_SIZE + idLength);
+        return position;
+    }
+
+    public synchronized long appendRule(InterestRule rule) throws IOException {
+        byte[] ruleId = rule.ruleId().getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = rule.rate().unscaledValue().toByteArray();
+        if (ruleId.length > MAX_TEXT_LENGTH || unscaled.length > MAX_TEXT_LENGTH) {
+            throw new IOException("Interest rule is too large to journal");
+        }
+
+        // kind, epoch day, rule id, scale, unscaled rate
+        int length = 1 + 4 + 2 + ruleId.length + 4 + 2 + unscaled.length;
+        int start = beginRecord(length);
+        int at = start + 4;
+        buffer.put(at, RULE);
+        buffer.putInt(at + 1, (int) rule.effectiveDate().toEpochDay());
+        buffer.putShort(at + 5, (short) ruleId.length);
+        buffer.put(at + 7, ruleId);
+        at += 7 + ruleId.length;
+        buffer.putInt(at, rule.rate().scale());
+        buffer.putShort(at + 4, (short) unscaled.length);
+        buffer.put(at + 6, unscaled);
+        endRecord(start, length);
+        return position;
+    }
+
+    // Reads every record from the given offset on, in order, and hands it to the ledger. The offset has to be a
+    // record boundary, such as the journal position a snapshot was taken at. Account ids are only decoded into a
+    // new String when they change from one record to the next, so a run of records for one account allocates
+    // nothing.
+    public synchronized long replay(Ledger ledger, long from) throws IOException {
+        if (from > position) {
+            throw new IOException("Journal " + path + " ends before the snapshot position " + from);
+        }
+        long records = 0;
+        byte[] idBytes = new byte[64];
+        int idLength = -1;
+        Account account = null;
+
+        int at = (int) Math.max(HEADER_SIZE, from);
+        while (at < position) {
+            int length = buffer.getInt(at);
+            int body = at + 4;
+            if (buffer.get(body) == TRANSACTION) {
+                int epochDay = buffer.getInt(body + 1);
+                char type = (char) buffer.get(body + 5);
+                long cents = buffer.getLong(body + 6);
+                int sequence = buffer.getInt(body + 14);
+                int recordIdLength = buffer.getShort(body + 18) & 0xFFFF;
+                if (!sameBytes(body + 20, idBytes, idLength, recordIdLength)) {
+                    if (idBytes.length < recordIdLength) {
+                        idBytes = new byte[recordIdLength];
+                    }
+                    buffer.get(body + 20, idBytes, 0, recordIdLength);
+                    idLength = recordIdLength;
+                    account = ledger.restoreAccount(new String(idBytes, 0, idLength, StandardCharsets.UTF_8));
+                }
+                ledger.restoreTransaction(account, epochDay, type, cents, sequence);
+            } else {
+                ledger.getInterestRules().upsert(readRule(body));
+            }
+            records++;
+            at = body + length + 4;
+        }
+        return records;
+    }
+
+    public synchronized void force() {
+        buffer.force();
+        forcedPosition = position;
+    }
+
+    // Forces the bytes appended since the last force, up to end. Only the range is flushed and the journal lock
+    // is not held while the device syncs, so appends carry on in the meantime.
+    public void force(long end) {
+        MappedByteBuffer target;
+        int from;
+        synchronized (this) {
+            if (closed || end <= forcedPosition) {
+                return;
+            }
+            target = buffer;
+            from = forcedPosition;
+        }
+        target.force(from, (int) end - from);
+        synchronized (this) {
+            forcedPosition = Math.max(forcedPosition, (int) end);
+        }
+    }
+
+    // Flushes the mapping and trims the preallocated zeros off the end of the file
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.force();
+        buffer = null;
+        channel.truncate(position);
+        channel.force(true);
+        channel.close();
+    }
+
+    // Reserves room for a record and returns its start; the length is written last by endRecord so a record
+    // is never visible to recovery before its body is complete
+    private int beginRecord(int length) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        int required = position + 4 + length + 4;
+        if (required < 0 || required > MAX_MAPPING) {
+            throw new IOException("Journal is full: " + path);
+        }
+        if (required > buffer.capacity()) {
+            long capacity = Math.min(MAX_MAPPING, Math.max((long) buffer.capacity() * 2, required));
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        return position;
+    }
+
+    private void endRecord(int start, int length) {
+        buffer.putInt(start + 4 + length, checksum(buffer, crc, start + 4, length));
+        buffer.putInt(start, length);
+        position = start + 4 + length + 4;
+    }
+
+    private InterestRule readRule(int body) {
+        LocalDate effectiveDate = LocalDate.ofEpochDay(buffer.getInt(body + 1));
+        byte[] ruleId = new byte[buffer.getShort(body + 5) & 0xFFFF];
+        buffer.get(body + 7, ruleId);
+        int at = body + 7 + ruleId.length;
+        int scale = buffer.getInt(at);
+        byte[] unscaled = new byte[buffer.getShort(at + 4) & 0xFFFF];
+        buffer.get(at + 6, unscaled);
+        return new InterestRule(effectiveDate, new String(ruleId, StandardCharsets.UTF_8),
+                new BigDecimal(new BigInteger(unscaled), scale));
+    }
+
+    private boolean sameBytes(int at, byte[] bytes, int bytesLength, int length) {
+        if (bytesLength != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(at + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void putText(int at, String text, byte[] nonAscii) {
+        if (nonAscii != null) {
+            buffer.put(at, nonAscii);
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put(at + i, (byte) text.charAt(i));
+        }
+    }
+
+    // Offset just past the last intact record
+    private static int scanToEnd(MappedByteBuffer buffer, int limit) {
+        CRC32C crc = new CRC32C();
+        int at = HEADER_SIZE;
+        while (at + 4 <= limit) {
+            int length = buffer.getInt(at);
+            if (length <= 0 || (long) at + 4 + length + 4 > limit) {
+                break;
+            }
+            byte kind = buffer.get(at + 4);
+            if ((kind != TRANSACTION && kind != RULE)
+                    || buffer.getInt(at + 4 + length) != checksum(buffer, crc, at + 4, length)) {
+                break;
+            }
+            at += 4 + length + 4;
+        }
+        return at;
+    }
+
+    private static int checksum(MappedByteBuffer buffer, CRC32C crc, int from, int length) {
+        crc.reset();
+        int savedPosition = buffer.position();
+        int savedLimit = buffer.limit();
+        buffer.limit(from + length).position(from);
+        crc.update(buffer);
+        buffer.limit(savedLimit).position(savedPosition);
+        return (int) crc.getValue();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,297 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.BankAccountInterest.Transaction;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Accounts, interest rules and transaction id sequences shared by every input stream. Each account has its own
+// read/write lock, so writes to different accounts never contend, and a statement holds the account's read lock
+// for as long as it takes to build, which gives it a consistent view while other accounts keep taking writes.
+//
+// With a journal opened, every accepted transaction and rule change is written to it before it is applied, and
+// opening the journal replays it to rebuild the ledger after a restart. With group commit enabled, a change is
+// only acknowledged once the journal has been forced past it.
+//
+// A snapshot stores the whole ledger as of one journal position. Startup loads the snapshot and replays only the
+// journal written after that position.
+public class Ledger {
+    private static final int DEFAULT_STATEMENT_CACHE_ENTRIES = 10_000;
+
+    private final AccountDirectory accounts = new AccountDirectory();
+    private final RuleTimeline interestRules = new RuleTimeline();
+    private final TransactionIds transactionIds = new TransactionIds();
+    private final StatementCache statementCache;
+    private volatile Journal journal;
+    private volatile GroupCommitLog commitLog;
+    // Journal position covered by the loaded snapshot; replay starts here
+    private long snapshotJournalPosition;
+
+    // Writers hold this shared while they journal and apply a change. A snapshot holds it exclusively just long
+    // enough to note the journal position and capture each account's transaction count, not to copy any data.
+    private final ReentrantReadWriteLock snapshotGate = new ReentrantReadWriteLock();
+
+    public Ledger() {
+        this(DEFAULT_STATEMENT_CACHE_ENTRIES);
+    }
+
+    public Ledger(int statementCacheEntries) {
+        statementCache = new StatementCache(statementCacheEntries);
+    }
+
+    public AccountDirectory getAccounts() {
+        return accounts;
+    }
+
+    public Account getAccount(String accountId) {
+        return accounts.get(accountId);
+    }
+
+    // Read access; rules should be changed through defineRule so the change is journaled and cached statements
+    // are dropped
+    public RuleTimeline getInterestRules() {
+        return interestRules;
+    }
+
+    public TransactionIds getTransactionIds() {
+        return transactionIds;
+    }
+
+    // Copy of the last sequence used on each date, keyed by yyyyMMdd
+    public Map<String, Integer> getTransactionCountByDate() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (long id : transactionIds.toArray()) {
+            counts.put(TransactionIds.formatDate(TransactionIds.epochDay(id)), TransactionIds.sequence(id));
+        }
+        return counts;
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public GroupCommitLog getCommitLog() {
+        return commitLog;
+    }
+
+    // Opens (or creates) the journal, replays it into this ledger and journals every later change.
+    // Returns the number of records replayed.
+    public long openJournal(Path path) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("A journal is already open: " + journal.getPath());
+        }
+        Journal opened = Journal.open(path);
+        long records;
+        try {
+            records = opened.replay(this, snapshotJournalPosition);
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        statementCache.clear();
+        journal = opened;
+        return records;
+    }
+
+    // As openJournal(path), and from then on every change waits for its group of records to be forced to disk
+    public long openJournal(Path path, int maxBatchSize, Duration maxWait) throws IOException {
+        long records = openJournal(path);
+        commitLog = new GroupCommitLog(journal, maxBatchSize, maxWait);
+        return records;
+    }
+
+    public void closeJournal() throws IOException {
+        GroupCommitLog currentLog = commitLog;
+        commitLog = null;
+        if (currentLog != null) {
+            currentLog.close();
+        }
+        Journal current = journal;
+        journal = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    // Loads a snapshot into this still empty ledger. Open the journal afterwards to replay what followed it.
+    public Snapshot.Summary loadSnapshot(Path path) throws IOException {
+        if (journal != null || !accounts.isEmpty()) {
+            throw new IllegalStateException("A snapshot can only be loaded into an empty ledger");
+        }
+        Snapshot.Summary summary = Snapshot.load(path, this);
+        snapshotJournalPosition = summary.journalPosition();
+        statementCache.clear();
+        return summary;
+    }
+
+    // Writes the ledger as of now. Writers are paused only while the cut is taken; the data is written out
+    // afterwards while they carry on. The journal is forced up to the cut first, so a snapshot on disk never
+    // points past the end of a journal that survived a crash.
+    public Snapshot.Summary writeSnapshot(Path path) throws IOException {
+        Snapshot.State state;
+        Journal current;
+        snapshotGate.writeLock().lock();
+        try {
+            current = journal;
+            List<InterestRule> rules = new ArrayList<>();
+            interestRules.forEach(rules::add);
+            Map<String, Account.Columns> columns = new TreeMap<>();
+            for (Account account : accounts.values()) {
+                Account.Columns accountColumns = account.columns();
+                if (accountColumns.count() > 0) {
+                    columns.put(account.getAccountId(), accountColumns);
+                }
+            }
+            state = new Snapshot.State(current == null ? 0 : current.size(), rules,
+                    transactionIds.toArray(), columns);
+        } finally {
+            snapshotGate.writeLock().unlock();
+        }
+        if (current != null) {
+            current.force(state.journalPosition());
+        }
+        return Snapshot.write(state, path);
+    }
+
+    // Adds the rule, replacing any rule with the same effective date. Returns the replaced rule, if any.
+    public InterestRule defineRule(InterestRule rule) throws IOException {
+        InterestRule replaced;
+        long journalEnd = 0;
+        snapshotGate.readLock().lock();
+        try {
+            synchronized (interestRules) {
+                Journal current = journal;
+                if (current != null) {
+                    journalEnd = current.appendRule(rule);
+                }
+                replaced = interestRules.upsert(rule);
+                statementCache.invalidateRules(rule.effectiveDate());
+            }
+        } finally {
+            snapshotGate.readLock().unlock();
+        }
+        awaitDurable(journalEnd);
+        return replaced;
+    }
+
+    public Transaction recordTransaction(int epochDay, String accountId, char type, long cents)
+            throws TransactionRejectedException {
+        return recordTransaction(epochDay, type == 'W' ? accounts.find(accountId) : accounts.intern(accountId),
+                type, cents);
+    }
+
+    // Applies the first-withdrawal and negative-balance rules and appends the transaction with the next id for
+    // its date, all under the account's write lock. The handle comes from getAccounts(); a deposit creates the
+    // account, and a withdrawal may pass -1 for an id that was never seen.
+    public Transaction recordTransaction(int epochDay, int accountHandle, char type, long cents)
+            throws TransactionRejectedException {
+        Account account = resolveAccount(accountHandle, type);
+        Transaction transaction;
+        long journalEnd;
+        snapshotGate.readLock().lock();
+        account.lock.writeLock().lock();
+        try {
+            checkWithdrawalLocked(account, type, cents);
+            // Every caller on the same date gets a distinct sequence; the id text is only built for the result
+            int sequence = transactionIds.next(epochDay);
+            journalEnd = appendLocked(account, epochDay, type, cents, sequence);
+            transaction = new Transaction(LocalDate.ofEpochDay(epochDay), account.getAccountId(), type,
+                    Money.fromCents(cents), TransactionIds.format(epochDay, sequence));
+        } finally {
+            account.lock.writeLock().unlock();
+            snapshotGate.readLock().unlock();
+        }
+
+        // Wait for the sync outside the account lock, so other writers to this account join the same group
+        awaitDurable(journalEnd);
+        return transaction;
+    }
+
+    // As recordTransaction, for pipelines that only need the outcome: nothing is built for the result and the
+    // journal sync is not waited for. Returns the journal position to pass to awaitDurable before the
+    // transaction may be reported as accepted, or 0 without a journal.
+    public long applyTransaction(int epochDay, int accountHandle, char type, long cents)
+            throws TransactionRejectedException {
+        Account account = resolveAccount(accountHandle, type);
+        snapshotGate.readLock().lock();
+        account.lock.writeLock().lock();
+        try {
+            checkWithdrawalLocked(account, type, cents);
+            return appendLocked(account, epochDay, type, cents, transactionIds.next(epochDay));
+        } finally {
+            account.lock.writeLock().unlock();
+            snapshotGate.readLock().unlock();
+        }
+    }
+
+    // Returns once the journal has been forced past the position; immediately without group commit
+    public void awaitDurable(long journalEnd) {
+        GroupCommitLog currentLog = commitLog;
+        if (currentLog != null && journalEnd > 0) {
+            currentLog.awaitDurable(journalEnd);
+        }
+    }
+
+    private Account resolveAccount(int accountHandle, char type) throws TransactionRejectedException {
+        Account account = type == 'W' ? accounts.get(accountHandle) : accounts.getOrCreate(accountHandle);
+        if (account == null) {
+            throw new TransactionRejectedException(RejectReason.FIRST_WITHDRAWAL);
+        }
+        return account;
+    }
+
+    private static void checkWithdrawalLocked(Account account, char type, long cents)
+            throws TransactionRejectedException {
+        if (type == 'W') {
+            // An account created by a concurrent first deposit that has not been appended yet is still empty
+            if (account.getTransactionCount() == 0) {
+                throw new TransactionRejectedException(RejectReason.FIRST_WITHDRAWAL);
+            }
+            long currentBalanceCents = account.getBalanceCents();
+            if (currentBalanceCents < cents) {
+                throw new TransactionRejectedException(RejectReason.INSUFFICIENT_FUNDS,
+                        "Insufficient funds. Current balance: " + Money.fromCents(currentBalanceCents));
+            }
+        }
+    }
+
+    // Journals and appends the transaction; returns the journal position after its record
+    private long appendLocked(Account account, int epochDay, char type, long cents, int sequence) {
+        long journalEnd = 0;
+        Journal current = journal;
+        if (current != null) {
+            try {
+                journalEnd = current.appendTransaction(epochDay, account.getAccountId(), type, cents, sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal transaction "
+                        + TransactionIds.format(epochDay, sequence), e);
+            }
+        }
+        account.append(epochDay, type, cents, sequence);
+        statementCache.invalidateAccount(account.getHandle(), epochDay);
+        return journalEnd;
+    }
+
+    Account restoreAccount(String accountId) {
+        return accounts.computeIfAbsent(accountId, Account::new);
+    }
+
+    // Re-applies a journaled transaction as it was accepted, without validating it again
+    void restoreTransaction(Account account, int epochDay, char type, long cents, int sequence) {
+        transactionIds.restore(epochDay, sequence);
+        account.append(epochDay, type, cents, sequence);
+    }
+}
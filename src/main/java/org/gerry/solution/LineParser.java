@@ -0,0 +1,250 @@
+package org.gerry.solution;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Hand-written tokenizer and field parser for command lines. One instance is reused line after line: tokens are
+// kept as offsets into the current line and dates/amounts are decoded straight from its characters, so the
+// common inputs never allocate. Results mirror String.trim().split("\\s+"), LocalDate.parse with yyyyMMdd and
+// new BigDecimal(...).setScale(2, HALF_UP); anything outside the fast path is handed to the JDK parsers.
+public class LineParser {
+    public static final long INVALID = Long.MIN_VALUE;
+    public static final int INVALID_YEAR_MONTH = -1;
+
+    private static final int MAX_TOKENS = 8;
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final long DAYS_0000_TO_1970 = 719528L;
+    private static final long[] POWERS_OF_TEN = new long[MAX_FAST_DIGITS + 1];
+    private static final ThreadLocal<LineParser> PARSERS = ThreadLocal.withInitial(LineParser::new);
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int[] tokenStart = new int[MAX_TOKENS];
+    private final int[] tokenEnd = new int[MAX_TOKENS];
+    private CharSequence line;
+    private int tokenCount;
+
+    // Scratch output of scanDecimal
+    private long unscaled;
+    private int scale;
+
+    // Parser bound to the calling thread, for handlers that are not given one explicitly
+    public static LineParser get() {
+        return PARSERS.get();
+    }
+
+    // Splits the line on whitespace and returns the number of tokens found
+    public int tokenize(CharSequence input) {
+        line = input;
+        tokenCount = 0;
+
+        // Same bounds as String.trim()
+        int start = 0;
+        int end = input.length();
+        while (start < end && input.charAt(start) <= ' ') start++;
+        while (end > start && input.charAt(end - 1) <= ' ') end--;
+
+        // Same separators as the \s regex class
+        int i = start;
+        while (i < end) {
+            int tokenFrom = i;
+            while (i < end && !isWhitespace(input.charAt(i))) i++;
+            if (tokenCount < MAX_TOKENS) {
+                tokenStart[tokenCount] = tokenFrom;
+                tokenEnd[tokenCount] = i;
+            }
+            tokenCount++;
+            while (i < end && isWhitespace(input.charAt(i))) i++;
+        }
+        return tokenCount;
+    }
+
+    public int tokenCount() {
+        return tokenCount;
+    }
+
+    public int tokenLength(int token) {
+        return tokenEnd[token] - tokenStart[token];
+    }
+
+    public char tokenChar(int token, int index) {
+        return line.charAt(tokenStart[token] + index);
+    }
+
+    public String tokenString(int token) {
+        return line.subSequence(tokenStart[token], tokenEnd[token]).toString();
+    }
+
+    // Handle of the account id in the token, looked up from the line's characters without building a String.
+    // With create, an id seen for the first time is added; otherwise an unknown id gives -1.
+    public int accountHandle(int token, AccountDirectory accounts, boolean create) {
+        return create ? accounts.intern(line, tokenStart[token], tokenEnd[token])
+                : accounts.find(line, tokenStart[token], tokenEnd[token]);
+    }
+
+    // First character of the token in upper case, as token.toUpperCase().charAt(0) would give
+    public char upperFirstChar(int token) {
+        char c = tokenChar(token, 0);
+        if (c < 128) {
+            return c >= 'a' && c <= 'z' ? (char) (c - 32) : c;
+        }
+        return tokenString(token).toUpperCase().charAt(0);
+    }
+
+    // yyyyMMdd to epoch day, or INVALID. Days past the end of the month are clamped to its last day, matching
+    // the SMART resolver behind DateTimeFormatter.ofPattern("yyyyMMdd").
+    public long parseEpochDay(int token) {
+        if (tokenLength(token) != 8) {
+            return INVALID;
+        }
+        int year = digits(token, 0, 4);
+        int month = digits(token, 4, 2);
+        int day = digits(token, 6, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return INVALID;
+        }
+        return epochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+    }
+
+    // YYYYMM as year * 100 + month, or INVALID_YEAR_MONTH
+    public int parseYearMonth(int token) {
+        if (tokenLength(token) != 6) {
+            return INVALID_YEAR_MONTH;
+        }
+        int year = digits(token, 0, 4);
+        int month = digits(token, 4, 2);
+        if (year < 0 || month < 0) {
+            // Not plain ASCII digits; let Integer.parseInt decide as the statement prompt always has
+            String text = tokenString(token);
+            try {
+                year = Integer.parseInt(text.substring(0, 4));
+                month = Integer.parseInt(text.substring(4, 6));
+            } catch (NumberFormatException e) {
+                return INVALID_YEAR_MONTH;
+            }
+        }
+        return month >= 1 && month <= 12 ? year * 100 + month : INVALID_YEAR_MONTH;
+    }
+
+    // Decimal amount rounded HALF_UP to cents, or INVALID when it is malformed or does not fit in a long
+    public long parseCents(int token) {
+        if (scanDecimal(token)) {
+            if (scale <= 2) {
+                long factor = POWERS_OF_TEN[2 - scale];
+                return Math.abs(unscaled) <= Long.MAX_VALUE / factor ? unscaled * factor : INVALID;
+            }
+            long divisor = POWERS_OF_TEN[scale - 2];
+            long cents = unscaled / divisor;
+            long remainder = Math.abs(unscaled % divisor);
+            if (remainder * 2 >= divisor) {
+                cents += unscaled < 0 ? -1 : 1;
+            }
+            return cents;
+        }
+
+        // Exponents, very long digit strings and malformed input take the BigDecimal route
+        try {
+            BigDecimal amount = new BigDecimal(tokenString(token)).setScale(2, RoundingMode.HALF_UP);
+            return amount.unscaledValue().bitLength() < 64 ? amount.unscaledValue().longValue() : INVALID;
+        } catch (NumberFormatException e) {
+            return INVALID;
+        }
+    }
+
+    // Decimal with its written scale kept, as new BigDecimal(token) would give, or null when malformed
+    public BigDecimal parseDecimal(int token) {
+        if (scanDecimal(token)) {
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+        try {
+            return new BigDecimal(tokenString(token));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static long epochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    // Plain [+-]digits[.digits] with at most MAX_FAST_DIGITS digits into unscaled/scale
+    private boolean scanDecimal(int token) {
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '+' || line.charAt(i) == '-')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digitCount = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitCount > MAX_FAST_DIGITS) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return false;
+            }
+        }
+        if (digitCount == 0) {
+            return false;
+        }
+
+        unscaled = negative ? -value : value;
+        scale = Math.max(fractionDigits, 0);
+        return true;
+    }
+
+    // Value of count ASCII digits starting at offset, or -1 if any of them is not a digit
+    private int digits(int token, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            char c = tokenChar(token, offset + i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
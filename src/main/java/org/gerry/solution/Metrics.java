@@ -0,0 +1,132 @@
+package org.gerry.solution;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide metrics of the ledger commands, the journal group commit and the interest engine, exposed through JMX and as text or
+// JSON reports for the periodic dump
+public class Metrics implements MetricsMXBean {
+    public static final CommandMetrics TRANSACTION = new CommandMetrics("transaction");
+    public static final CommandMetrics INTEREST_RULE = new CommandMetrics("interest-rule");
+    public static final CommandMetrics STATEMENT = new CommandMetrics("statement");
+    public static final List<CommandMetrics> COMMANDS = List.of(TRANSACTION, INTEREST_RULE, STATEMENT);
+    // Journal forces and durability waits, when the journal runs with group commit
+    public static final GroupCommitMetrics GROUP_COMMIT = new GroupCommitMetrics();
+
+    // Months of interest computed by the engine, and the periods of constant balance and rate evaluated for them.
+    // Statements served from the cache do not add to these.
+    static final LongAdder INTEREST_MONTHS = new LongAdder();
+    static final LongAdder INTEREST_PERIODS = new LongAdder();
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static boolean registered;
+
+    private Metrics() {
+    }
+
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    // Registers the beans with the platform MBean server; later calls do nothing
+    public static synchronized void registerMBeans() throws JMException {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(INSTANCE, new ObjectName("org.gerry.solution:type=Metrics"));
+        for (CommandMetrics command : COMMANDS) {
+            server.registerMBean(command, new ObjectName("org.gerry.solution:type=CommandMetrics,name="
+                    + command.getName()));
+        }
+        server.registerMBean(GROUP_COMMIT, new ObjectName("org.gerry.solution:type=GroupCommitMetrics"));
+        registered = true;
+    }
+
+    @Override
+    public long getInterestMonthsEvaluated() {
+        return INTEREST_MONTHS.sum();
+    }
+
+    @Override
+    public long getInterestPeriodsEvaluated() {
+        return INTEREST_PERIODS.sum();
+    }
+
+    @Override
+    public String getTextReport() {
+        StringBuilder text = new StringBuilder();
+        text.append("Metrics at ").append(Instant.now()).append('\n');
+        text.append(String.format(Locale.ROOT, "| %-13s | %10s | %10s | %10s | %10s | %10s | %10s | %10s |\n",
+                "Command", "Count", "Rejected", "Mean (us)", "p50 (us)", "p99 (us)", "p99.9 (us)", "Max (us)"));
+        for (CommandMetrics command : COMMANDS) {
+            text.append(String.format(Locale.ROOT,
+                    "| %-13s | %10d | %10d | %10.1f | %10.1f | %10.1f | %10.1f | %10.1f |\n",
+                    command.getName(), command.getCount(), command.getRejected(), command.getMeanMicros(),
+                    command.getP50Micros(), command.getP99Micros(), command.getP999Micros(),
+                    command.getMaxMicros()));
+        }
+        for (CommandMetrics command : COMMANDS) {
+            Map<String, Long> rejections = command.getRejectionsByReason();
+            if (!rejections.isEmpty()) {
+                text.append("Rejected ").append(command.getName()).append(": ").append(rejections).append('\n');
+            }
+        }
+        text.append(String.format(Locale.ROOT, "Group commit: %d forces, %d records, %.1f records/force, "
+                        + "largest %d; wait mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us\n",
+                GROUP_COMMIT.getGroupCount(), GROUP_COMMIT.getRecordCount(), GROUP_COMMIT.getAverageBatchSize(),
+                GROUP_COMMIT.getLargestBatch(), GROUP_COMMIT.getMeanLatencyMicros(),
+                GROUP_COMMIT.getP50LatencyMicros(), GROUP_COMMIT.getP99LatencyMicros(),
+                GROUP_COMMIT.getMaxLatencyMicros()));
+        text.append("Interest evaluated: ").append(getInterestMonthsEvaluated()).append(" months, ")
+                .append(getInterestPeriodsEvaluated()).append(" periods\n");
+        return text.toString();
+    }
+
+    // One JSON object on a single line
+    @Override
+    public String getJsonReport() {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"timestamp\":\"").append(Instant.now()).append("\",\"commands\":{");
+        for (int i = 0; i < COMMANDS.size(); i++) {
+            CommandMetrics command = COMMANDS.get(i);
+            json.append(i == 0 ? "" : ",").append('"').append(command.getName()).append("\":{\"count\":")
+                    .append(command.getCount()).append(",\"rejected\":").append(command.getRejected())
+                    .append(",\"rejections\":{");
+            boolean first = true;
+            for (Map.Entry<String, Long> rejection : command.getRejectionsByReason().entrySet()) {
+                json.append(first ? "" : ",").append('"').append(rejection.getKey()).append("\":")
+                        .append(rejection.getValue());
+                first = false;
+            }
+            json.append("},\"latencyMicros\":{\"mean\":").append(round(command.getMeanMicros()))
+                    .append(",\"p50\":").append(round(command.getP50Micros()))
+                    .append(",\"p90\":").append(round(command.getP90Micros()))
+                    .append(",\"p99\":").append(round(command.getP99Micros()))
+                    .append(",\"p99.9\":").append(round(command.getP999Micros()))
+                    .append(",\"max\":").append(round(command.getMaxMicros())).append("}}");
+        }
+        json.append("},\"groupCommit\":{\"forces\":").append(GROUP_COMMIT.getGroupCount())
+                .append(",\"records\":").append(GROUP_COMMIT.getRecordCount())
+                .append(",\"averageBatch\":").append(round(GROUP_COMMIT.getAverageBatchSize()))
+                .append(",\"largestBatch\":").append(GROUP_COMMIT.getLargestBatch())
+                .append(",\"waitMicros\":{\"mean\":").append(round(GROUP_COMMIT.getMeanLatencyMicros()))
+                .append(",\"p50\":").append(round(GROUP_COMMIT.getP50LatencyMicros()))
+                .append(",\"p99\":").append(round(GROUP_COMMIT.getP99LatencyMicros()))
+                .append(",\"max\":").append(round(GROUP_COMMIT.getMaxLatencyMicros()))
+                .append("}},\"interest\":{\"months\":").append(getInterestMonthsEvaluated())
+                .append(",\"periods\":").append(getInterestPeriodsEvaluated()).append("}}");
+        return json.toString();
+    }
+
+    private static String round(double micros) {
+        return String.format(Locale.ROOT, "%.1f", micros);
+    }
+}
@@ -0,0 +1,12 @@
+package org.gerry.solution;
+
+// JMX view of the ledger-wide metrics, registered as org.gerry.solution:type=Metrics
+public interface MetricsMXBean {
+    long getInterestMonthsEvaluated();
+
+    long getInterestPeriodsEvaluated();
+
+    String getTextReport();
+
+    String getJsonReport();
+}
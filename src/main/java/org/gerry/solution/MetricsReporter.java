@@ -0,0 +1,32 @@
+package org.gerry.solution;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.time.Duration;
+
+// Prints the metrics report on a background thread at a fixed interval, and a last one on close
+public class MetricsReporter implements Closeable {
+    private final PrintStream out;
+    private final boolean json;
+    private final PeriodicTask task;
+
+    public MetricsReporter(PrintStream out, boolean json, Duration interval) {
+        this.out = out;
+        this.json = json;
+        this.task = new PeriodicTask("Metrics", "ledger-metrics", interval, this::report);
+    }
+
+    @Override
+    public void close() {
+        task.close();
+    }
+
+    private void report() {
+        if (json) {
+            out.println(Metrics.get().getJsonReport());
+        } else {
+            out.print(Metrics.get().getTextReport());
+        }
+        out.flush();
+    }
+}
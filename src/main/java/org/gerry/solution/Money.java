@@ -0,0 +1,25 @@
+package org.gerry.solution;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Conversions between BigDecimal amounts at the edges and the long cents used internally
+public class Money {
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // dividend / divisor rounded HALF_UP, for a positive divisor, as BigDecimal.divide would round it
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,191 @@
+package org.gerry.solution;
+
+import org.gerry.solution.PrintStatement.Statement;
+import org.gerry.solution.StatementRenderer.Format;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class MonthEndStatementRun {
+    // Accounts handled by one fork/join leaf before it stops splitting
+    private static final int ACCOUNTS_PER_TASK = 64;
+
+    public static void handleMonthEndInput(Scanner scanner, Ledger ledger) {
+        System.out.println("\nPlease enter month and output location <Year><Month> <Output file or directory> "
+                + "[text|csv|json]");
+        System.out.println("(or enter blank to go back to main menu):");
+        System.out.print("> ");
+
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+            return;
+        }
+
+        LineParser parser = LineParser.get();
+        int tokenCount = parser.tokenize(input);
+        if (tokenCount != 2 && tokenCount != 3) {
+            System.out.println("Invalid format. Please try again.");
+            return;
+        }
+        Format format = tokenCount == 3 ? Format.fromName(parser.tokenString(2)) : Format.TEXT;
+        if (format == null) {
+            System.out.println("Unknown output format. Use text, csv or json.");
+            return;
+        }
+
+        int yearMonth = parser.parseYearMonth(0);
+        if (yearMonth == LineParser.INVALID_YEAR_MONTH) {
+            System.out.println("Invalid year/month format. Use YYYYMM format.");
+            return;
+        }
+        int year = yearMonth / 100;
+        int month = yearMonth % 100;
+        String yearMonthText = parser.tokenString(0);
+        String outputLocation = parser.tokenString(1);
+
+        try {
+            long startNanos = System.nanoTime();
+            String[] accountIds = sortedAccountIds(ledger.getAccounts());
+            String[] statements = renderStatements(ledger.getAccounts(), accountIds, ledger.getInterestRules(), year, month,
+                    format, ForkJoinPool.commonPool());
+
+            Path output = Path.of(outputLocation);
+            String header = header(format);
+            if (Files.isDirectory(output)) {
+                writePerAccountFiles(output, accountIds, statements, header,
+                        yearMonthText + "." + format.getExtension());
+            } else {
+                writeMergedFile(output, statements, header);
+            }
+
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            System.out.printf("\nGenerated %d statements for %s in %.3f s (%.0f accounts/s)\n",
+                    accountIds.length, yearMonthText, seconds, accountIds.length / Math.max(seconds, 1e-9));
+        } catch (IOException e) {
+            System.out.println("Error writing statements: " + e.getMessage());
+        }
+    }
+
+    // Builds and renders every account's statement on the pool. Slot i holds the statement text for accountIds[i],
+    // so the output order does not depend on which worker finished first.
+    public static String[] renderStatements(Map<String, Account> accounts, String[] accountIds,
+                                            RuleTimeline interestRules, int year, int month, ForkJoinPool pool) {
+        return renderStatements(accounts, accountIds, interestRules, year, month, Format.TEXT, pool);
+    }
+
+    public static String[] renderStatements(Map<String, Account> accounts, String[] accountIds,
+                                            RuleTimeline interestRules, int year, int month, Format format,
+                                            ForkJoinPool pool) {
+        String[] statements = new String[accountIds.length];
+        pool.invoke(new StatementTask(accounts, accountIds, interestRules, year, month, format, statements,
+                0, accountIds.length));
+        return statements;
+    }
+
+    // <Year><Month> of a batch or shard month-end request, as year * 100 + month
+    static int parseMonth(LineParser parser, CharSequence input) throws TransactionRejectedException {
+        if (parser.tokenize(input) != 1) {
+            throw new TransactionRejectedException(RejectReason.INVALID_FORMAT);
+        }
+        int yearMonth = parser.parseYearMonth(0);
+        if (yearMonth == LineParser.INVALID_YEAR_MONTH) {
+            throw new TransactionRejectedException(RejectReason.INVALID_YEAR_MONTH);
+        }
+        return yearMonth;
+    }
+
+    public static String[] sortedAccountIds(Map<String, Account> accounts) {
+        String[] accountIds = accounts.keySet().toArray(new String[0]);
+        Arrays.sort(accountIds);
+        return accountIds;
+    }
+
+    // Text written once before the statements of a file
+    private static String header(Format format) throws IOException {
+        StringWriter header = new StringWriter();
+        StatementRenderer renderer = StatementRenderer.create(format, header);
+        renderer.header();
+        renderer.flush();
+        return header.toString();
+    }
+
+    private static void writeMergedFile(Path output, String[] statements, String header) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(header);
+            for (String statement : statements) {
+                writer.write(statement);
+            }
+        }
+    }
+
+    private static void writePerAccountFiles(Path directory, String[] accountIds, String[] statements,
+                                             String header, String suffix) throws IOException {
+        for (int i = 0; i < accountIds.length; i++) {
+            String fileName = accountIds[i].replaceAll("[^A-Za-z0-9._-]", "_") + "_" + suffix;
+            Files.writeString(directory.resolve(fileName), header + statements[i], StandardCharsets.UTF_8);
+        }
+    }
+
+    // Never serialized; the ledger it reads is shared with the caller
+    private static class StatementTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Map<String, Account> accounts;
+        private final String[] accountIds;
+        private final transient RuleTimeline interestRules;
+        private final int year;
+        private final int month;
+        private final Format format;
+        private final String[] statements;
+        private final int from;
+        private final int to;
+
+        StatementTask(Map<String, Account> accounts, String[] accountIds, RuleTimeline interestRules,
+                      int year, int month, Format format, String[] statements, int from, int to) {
+            this.accounts = accounts;
+            this.accountIds = accountIds;
+            this.interestRules = interestRules;
+            this.year = year;
+            this.month = month;
+            this.format = format;
+            this.statements = statements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ACCOUNTS_PER_TASK) {
+                StringWriter out = new StringWriter();
+                StatementRenderer renderer = StatementRenderer.create(format, out);
+                try {
+                    for (int i = from; i < to; i++) {
+                        Statement statement = PrintStatement.buildStatement(accounts.get(accountIds[i]),
+                                interestRules, year, month);
+                        renderer.render(statement);
+                        renderer.flush();
+                        statements[i] = out.toString();
+                        out.getBuffer().setLength(0);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                    new StatementTask(accounts, accountIds, interestRules, year, month, format, statements, from, mid),
+                    new StatementTask(accounts, accountIds, interestRules, year, month, format, statements, mid, to));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.gerry.solution;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Runs a task on its own daemon thread every interval, and a last time on close once any run in progress has
+// finished. The next run starts an interval after the previous one ended, so slow runs never pile up.
+class PeriodicTask implements Closeable {
+    private final Runnable task;
+    private final ScheduledExecutorService scheduler;
+
+    // name describes the task in the error for a bad interval, threadName names the thread
+    PeriodicTask(String name, String threadName, Duration interval, Runnable task) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException(name + " interval must be positive");
+        }
+        this.task = task;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+                Thread.ofPlatform().daemon().name(threadName).unstarted(runnable));
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(task, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        task.run();
+    }
+}
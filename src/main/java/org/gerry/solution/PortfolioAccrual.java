@@ -0,0 +1,313 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+// Interest accrued so far this month by every account, for the nightly accrual report. Instead of walking each
+// account's history on its own, the end-of-day balances of all accounts are laid out in one long[] and the month
+// is stepped through a day at a time: each day adds balance * the day's rate for every account at once, with the
+// JDK Vector API when the jdk.incubator.vector module is present and a plain loop otherwise.
+//
+// The figures are exactly InterestEngine's. Rates are scaled to their common number of decimals so a day's
+// product stays a long, and whenever InterestEngine would start a new period (an account's balance changes or a
+// rule takes effect) the products collected for the period are rounded to units of 0.0001 just as it rounds
+// them. As of the last day of a month the result is the interest PrintStatement shows for the month. If the
+// scaled products could overflow, the periods are summed one account at a time with BigDecimal instead.
+public class PortfolioAccrual {
+    private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    public enum Kernel {
+        // SIMD over the balances, one day at a time
+        VECTOR,
+        // The same daily loop without SIMD
+        SCALAR,
+        // Period by period per account, exact for any rate and balance
+        PER_ACCOUNT
+    }
+
+    // interestCents[i] is the interest accrued by accountIds[i]; kernel is the one that computed it
+    public record Accrual(LocalDate asOf, String[] accountIds, long[] interestCents, Kernel kernel) {
+        public BigDecimal getInterest(int index) {
+            return Money.fromCents(interestCents[index]);
+        }
+
+        public BigDecimal getTotalInterest() {
+            long total = 0;
+            for (long cents : interestCents) {
+                total += cents;
+            }
+            return Money.fromCents(total);
+        }
+    }
+
+    public static void handleAccrualInput(Scanner scanner, Ledger ledger) {
+        System.out.println("\nPlease enter the date to accrue interest up to <Date>");
+        System.out.println("(or enter blank to go back to main menu):");
+        System.out.print("> ");
+
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+            return;
+        }
+
+        LineParser parser = LineParser.get();
+        if (parser.tokenize(input) != 1) {
+            System.out.println(RejectReason.INVALID_FORMAT.getMessage());
+            return;
+        }
+        long epochDay = parser.parseEpochDay(0);
+        if (epochDay == LineParser.INVALID) {
+            System.out.println(RejectReason.INVALID_DATE.getMessage());
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        Accrual accrual = accrueMonthToDate(ledger.getAccounts(), ledger.getInterestRules(),
+                LocalDate.ofEpochDay(epochDay));
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        System.out.println("\nInterest accrued from "
+                + TransactionIds.formatDate((int) accrual.asOf().withDayOfMonth(1).toEpochDay()) + " to "
+                + TransactionIds.formatDate((int) epochDay) + ":");
+        System.out.println("| Account          | Accrued         |");
+        for (int i = 0; i < accrual.accountIds().length; i++) {
+            System.out.printf("| %-16s | %15s |\n", accrual.accountIds()[i], accrual.getInterest(i));
+        }
+        System.out.printf("| %-16s | %15s |\n", "Total", accrual.getTotalInterest());
+        System.out.printf("Accrued %d accounts in %.3f s (%s kernel)\n", accrual.accountIds().length, seconds,
+                accrual.kernel().name().toLowerCase());
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    // Interest accrued from the first of asOf's month up to and including asOf, for every account in id order
+    public static Accrual accrueMonthToDate(Map<String, Account> accounts, RuleTimeline interestRules,
+                                            LocalDate asOf) {
+        return accrueMonthToDate(accounts, interestRules, asOf, VECTOR_AVAILABLE ? Kernel.VECTOR : Kernel.SCALAR);
+    }
+
+    // As above with a chosen kernel. VECTOR runs as SCALAR without the module, and either runs as PER_ACCOUNT
+    // when the rates or balances are too large for long products; the result says which one ran.
+    public static Accrual accrueMonthToDate(Map<String, Account> accounts, RuleTimeline interestRules,
+                                            LocalDate asOf, Kernel kernel) {
+        String[] accountIds = MonthEndStatementRun.sortedAccountIds(accounts);
+        LocalDate monthStart = asOf.withDayOfMonth(1);
+        int startDay = (int) monthStart.toEpochDay();
+        int days = asOf.getDayOfMonth();
+        // Like InterestEngine, a balance or rule change on the last day of the month only counts from the next
+        // month, so the last day accrues on the day before's balance and rate
+        int lastChangeDay = Math.min((int) asOf.toEpochDay(),
+                (int) YearMonth.from(asOf).atEndOfMonth().toEpochDay() - 1);
+
+        Columns columns = Columns.load(accounts, accountIds, startDay, lastChangeDay);
+        List<InterestRule> rules = interestRules.getRulesForPeriod(monthStart, LocalDate.ofEpochDay(lastChangeDay));
+        int[] ruleDays = new int[rules.size()];
+        BigDecimal[] rates = new BigDecimal[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            InterestRule rule = rules.get(r);
+            ruleDays[r] = r == 0 ? 0 : (int) rule.effectiveDate().toEpochDay() - startDay;
+            rates[r] = rule == null ? BigDecimal.ZERO : rule.rate();
+        }
+
+        long[] units = null;
+        if (kernel != Kernel.PER_ACCOUNT) {
+            int scale = commonScale(rates);
+            long[] scaledRates = scale < 0 ? null : scaleRates(rates, scale, columns.maxAbsCents, days);
+            if (scaledRates != null) {
+                kernel = kernel == Kernel.VECTOR && VECTOR_AVAILABLE ? Kernel.VECTOR : Kernel.SCALAR;
+                units = accrueDaily(columns, days, ruleDays, scaledRates, InterestEngine.POWERS_OF_TEN[scale],
+                        kernel == Kernel.VECTOR);
+            } else {
+                kernel = Kernel.PER_ACCOUNT;
+            }
+        }
+        if (units == null) {
+            units = accruePerAccount(columns, days, ruleDays, rates);
+        }
+
+        long[] interestCents = new long[accountIds.length];
+        for (int i = 0; i < interestCents.length; i++) {
+            interestCents[i] = Money.divideHalfUp(Money.divideHalfUp(units[i], InterestEngine.DAYS_IN_YEAR), 100);
+        }
+        return new Accrual(asOf, accountIds, interestCents, kernel);
+    }
+
+    // Steps through the days adding balance * rate to each account's open period, rounding a period into units of
+    // 0.0001 whenever it ends. The rates are scaled by 10^scale, and divisor is that power of ten.
+    private static long[] accrueDaily(Columns columns, int days, int[] ruleDays, long[] scaledRates, long divisor,
+                                      boolean vector) {
+        int n = columns.accounts;
+        long[] balances = columns.openingCents.clone();
+        long[] accrued = new long[n];
+        long[] units = new long[n];
+
+        long rate = scaledRates[0];
+        int rule = 1;
+        for (int t = 0; t < days; t++) {
+            if (rule < ruleDays.length && ruleDays[rule] == t) {
+                for (int i = 0; i < n; i++) {
+                    units[i] += Money.divideHalfUp(accrued[i], divisor);
+                    accrued[i] = 0;
+                }
+                rate = scaledRates[rule++];
+            }
+            for (int e = columns.dayStart[t]; e < columns.dayStart[t + 1]; e++) {
+                int i = columns.eventAccounts[e];
+                units[i] += Money.divideHalfUp(accrued[i], divisor);
+                accrued[i] = 0;
+                balances[i] = columns.eventCents[e];
+            }
+
+            if (rate != 0) {
+                int i = vector ? VectorAccrualKernel.accrueDay(balances, accrued, rate, n) : 0;
+                for (; i < n; i++) {
+                    accrued[i] += balances[i] * rate;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            units[i] += Money.divideHalfUp(accrued[i], divisor);
+        }
+        return units;
+    }
+
+    // The same periods, each one's interest computed directly by InterestEngine
+    private static long[] accruePerAccount(Columns columns, int days, int[] ruleDays, BigDecimal[] rates) {
+        int n = columns.accounts;
+        long[] balances = columns.openingCents.clone();
+        int[] periodStarts = new int[n];
+        long[] units = new long[n];
+
+        BigDecimal rate = rates[0];
+        int rule = 1;
+        for (int t = 1; t < days; t++) {
+            if (rule < ruleDays.length && ruleDays[rule] == t) {
+                for (int i = 0; i < n; i++) {
+                    units[i] += InterestEngine.periodInterestUnits(balances[i], rate, t - periodStarts[i]);
+                    periodStarts[i] = t;
+                }
+                rate = rates[rule++];
+            }
+            for (int e = columns.dayStart[t]; e < columns.dayStart[t + 1]; e++) {
+                int i = columns.eventAccounts[e];
+                units[i] += InterestEngine.periodInterestUnits(balances[i], rate, t - periodStarts[i]);
+                periodStarts[i] = t;
+                balances[i] = columns.eventCents[e];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            units[i] += InterestEngine.periodInterestUnits(balances[i], rate, days - periodStarts[i]);
+        }
+        return units;
+    }
+
+    // Number of decimals every rate can be scaled to exactly, or -1 if that is too many for a long
+    private static int commonScale(BigDecimal[] rates) {
+        int scale = 0;
+        for (BigDecimal rate : rates) {
+            scale = Math.max(scale, rate.scale());
+        }
+        for (BigDecimal rate : rates) {
+            if (scale - rate.scale() >= InterestEngine.POWERS_OF_TEN.length) {
+                return -1;
+            }
+        }
+        return scale < InterestEngine.POWERS_OF_TEN.length ? scale : -1;
+    }
+
+    // Rates times 10^scale, or null if a rate or the largest possible sum of a period's products overflows
+    private static long[] scaleRates(BigDecimal[] rates, int scale, long maxAbsCents, int days) {
+        long[] scaled = new long[rates.length];
+        try {
+            long maxRate = 0;
+            for (int r = 0; r < rates.length; r++) {
+                scaled[r] = Math.multiplyExact(rates[r].unscaledValue().longValueExact(),
+                        InterestEngine.POWERS_OF_TEN[scale - rates[r].scale()]);
+                maxRate = Math.max(maxRate, Math.absExact(scaled[r]));
+            }
+            Math.multiplyExact(Math.multiplyExact(maxAbsCents, maxRate), (long) days);
+            return scaled;
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // Balances of all accounts as primitive columns: each account's balance at the end of the first day, then its
+    // end-of-day balance changes bucketed by day offset, events dayStart[t] to dayStart[t + 1] on day t
+    private static class Columns {
+        final int accounts;
+        final long[] openingCents;
+        final int[] dayStart;
+        int[] eventAccounts;
+        long[] eventCents;
+        long maxAbsCents;
+
+        private Columns(int accounts, int days) {
+            this.accounts = accounts;
+            this.openingCents = new long[accounts];
+            this.dayStart = new int[days + 1];
+        }
+
+        // Each account is read under its own read lock, so its balances are consistent with each other
+        static Columns load(Map<String, Account> accounts, String[] accountIds, int startDay, int lastChangeDay) {
+            Columns columns = new Columns(accountIds.length, 31);
+            int[] days = new int[64];
+            int[] owners = new int[64];
+            long[] cents = new long[64];
+            int count = 0;
+
+            for (int i = 0; i < accountIds.length; i++) {
+                Account account = accounts.get(accountIds[i]);
+                if (account == null) {
+                    continue;
+                }
+                account.lock.readLock().lock();
+                try {
+                    columns.openingCents[i] = account.getBalanceCentsAtDay(startDay);
+                    columns.maxAbsCents = Math.max(columns.maxAbsCents, Math.abs(columns.openingCents[i]));
+                    int checkpointCount = account.getCheckpointCount();
+                    for (int c = account.firstCheckpointOnOrAfter(startDay + 1);
+                         c < checkpointCount && account.getCheckpointDay(c) <= lastChangeDay; c++) {
+                        if (count == days.length) {
+                            days = Arrays.copyOf(days, count * 2);
+                            owners = Arrays.copyOf(owners, count * 2);
+                            cents = Arrays.copyOf(cents, count * 2);
+                        }
+                        days[count] = account.getCheckpointDay(c) - startDay;
+                        owners[count] = i;
+                        cents[count] = account.getCheckpointCents(c);
+                        columns.maxAbsCents = Math.max(columns.maxAbsCents, Math.abs(cents[count]));
+                        count++;
+                    }
+                } finally {
+                    account.lock.readLock().unlock();
+                }
+            }
+
+            // Counting sort by day; accounts stay in order within a day
+            for (int e = 0; e < count; e++) {
+                columns.dayStart[days[e] + 1]++;
+            }
+            for (int t = 0; t < columns.dayStart.length - 1; t++) {
+                columns.dayStart[t + 1] += columns.dayStart[t];
+            }
+            int[] next = Arrays.copyOf(columns.dayStart, columns.dayStart.length);
+            columns.eventAccounts = new int[count];
+            columns.eventCents = new long[count];
+            for (int e = 0; e < count; e++) {
+                int position = next[days[e]]++;
+                columns.eventAccounts[position] = owners[e];
+                columns.eventCents[position] = cents[e];
+            }
+            return columns;
+        }
+    }
+}
@@ -1,199 +1,203 @@
 package org.gerry.solution;
 
 import org.gerry.solution.BankAccountInterest.Transaction;
-import org.gerry.solution.BankAccountInterest.InterestRule;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 public class PrintStatement {
-    public static void handleStatementPrint(Scanner scanner, Map<String, List<Transaction>> accounts,
-                                            List<InterestRule> interestRules) {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("uuuuMM");
+    private static final int MAX_RANGE_MONTHS = 120;
+
+    public static void handleStatementPrint(Scanner scanner, Ledger ledger) {
         String input = getUserInput(scanner);
         if (input == null) return;
 
-        String[] parts = input.split("\\s+");
-        if (parts.length != 2) {
-            System.out.println("Invalid format. Please try again.");
-            return;
-        }
-
-        String accountId = parts[0];
-        if (!accounts.containsKey(accountId)) {
-            System.out.println("Account not found.");
-            return;
+        StatementRenderer renderer = StatementRenderer.create(StatementRenderer.Format.TEXT, System.out);
+        try {
+            renderStatement(LineParser.get(), input, ledger, renderer);
+            renderer.flush();
+        } catch (TransactionRejectedException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        int year, month;
-        if (!isValidYearMonth(parts[1])) {
-            System.out.println("Invalid year/month format. Use YYYYMM format.");
-            return;
+    // Validates an <Account> <Year><Month>, <Account> <Year><Month>-<Year><Month> or <Account> YTD [<Year><Month>]
+    // request and renders the statement it asks for
+    public static void renderStatement(LineParser parser, CharSequence input, Ledger ledger,
+                                       StatementRenderer renderer) throws TransactionRejectedException, IOException {
+        long startNanos = System.nanoTime();
+        try {
+            parseAndRender(parser, input, ledger, renderer);
+        } catch (TransactionRejectedException e) {
+            Metrics.STATEMENT.rejected(e.getReason());
+            throw e;
+        } finally {
+            Metrics.STATEMENT.record(startNanos);
         }
-        year = Integer.parseInt(parts[1].substring(0, 4));
-        month = Integer.parseInt(parts[1].substring(4, 6));
-
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
-        List<Transaction> accountTransactions = accounts.get(accountId);
-
-        BigDecimal openingBalance = calculateOpeningBalance(accountTransactions, startDate);
-        List<Transaction> monthTransactions = filterTransactionsByDate(accountTransactions, startDate, endDate);
-        monthTransactions.sort(Comparator.comparing(Transaction::date));
-
-        BigDecimal interest = calculateInterest(accountTransactions, interestRules, year, month);
-        Transaction interestTransaction = new Transaction(endDate, accountId, 'I', interest, "           ");
-
-        printAccountStatement(accountId, monthTransactions, openingBalance, interestTransaction);
     }
 
-    private static String getUserInput(Scanner scanner) {
-        System.out.println("\nPlease enter account and month to generate the statement <Account> <Year><Month>");
-        System.out.println("(or enter blank to go back to main menu):");
-        System.out.print("> ");
-        String input = scanner.nextLine().trim();
-        return input.isEmpty() ? null : input;
-    }
+    private static void parseAndRender(LineParser parser, CharSequence input, Ledger ledger,
+                                       StatementRenderer renderer) throws TransactionRejectedException, IOException {
+        int tokenCount = parser.tokenize(input);
+        if (tokenCount != 2 && tokenCount != 3) {
+            throw new TransactionRejectedException(RejectReason.INVALID_FORMAT);
+        }
 
-    private static boolean isValidYearMonth(String input) {
-        if (input.length() != 6) return false;
-        try {
-            int month = Integer.parseInt(input.substring(4, 6));
-            return month >= 1 && month <= 12;
-        } catch (NumberFormatException e) {
-            return false;
+        Account account = ledger.getAccounts().get(parser.accountHandle(0, ledger.getAccounts(), false));
+        if (account == null) {
+            throw new TransactionRejectedException(RejectReason.ACCOUNT_NOT_FOUND);
         }
-    }
 
-    private static List<Transaction> filterTransactionsByDate(List<Transaction> transactions,
-                                                              LocalDate startDate, LocalDate endDate) {
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : transactions) {
-            if (!t.date().isBefore(startDate) && !t.date().isAfter(endDate)) {
-                filtered.add(t);
+        if (parser.tokenString(1).equalsIgnoreCase("YTD")) {
+            YearMonth last = tokenCount == 3 ? parseMonth(parser.tokenString(2)) : YearMonth.now();
+            if (last == null) {
+                throw new TransactionRejectedException(RejectReason.INVALID_YEAR_MONTH);
             }
+            renderer.render(buildRangeStatement(account, ledger.getInterestRules(), last.withMonth(1), last));
+            return;
+        }
+        if (tokenCount != 2) {
+            throw new TransactionRejectedException(RejectReason.INVALID_FORMAT);
         }
-        return filtered;
-    }
 
-    private static void printAccountStatement(String accountId, List<Transaction> transactions,
-                                              BigDecimal openingBalance, Transaction interestTransaction) {
-        System.out.println("\nAccount: " + accountId);
-        System.out.println("| Date     | Txn Id      | Type | Amount  | Balance |");
-
-        BigDecimal runningBalance = openingBalance;
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-
-        for (Transaction t : transactions) {
-            runningBalance = updateBalance(runningBalance, t);
-            System.out.printf("| %s | %-10s | %-4s | %7s | %7s |\n",
-                    t.date().format(DateTimeFormatter.ofPattern("yyyyMMdd")),
-                    t.transactionId(),
-                    t.type(),
-                    df.format(t.amount()),
-                    df.format(runningBalance));
+        String period = parser.tokenString(1);
+        int separator = period.indexOf('-');
+        if (separator >= 0) {
+            YearMonth first = parseMonth(period.substring(0, separator));
+            YearMonth last = parseMonth(period.substring(separator + 1));
+            if (first == null || last == null) {
+                throw new TransactionRejectedException(RejectReason.INVALID_RANGE);
+            }
+            if (last.isBefore(first) || first.plusMonths(MAX_RANGE_MONTHS).isBefore(last.plusMonths(1))) {
+                throw new TransactionRejectedException(RejectReason.RANGE_TOO_LONG);
+            }
+            renderer.render(buildRangeStatement(account, ledger.getInterestRules(), first, last));
+            return;
         }
 
-        runningBalance = runningBalance.add(interestTransaction.amount());
-        System.out.printf("| %s | %-10s | %-4s | %7s | %7s |\n",
-                interestTransaction.date().format(DateTimeFormatter.ofPattern("yyyyMMdd")),
-                interestTransaction.transactionId(),
-                interestTransaction.type(),
-                df.format(interestTransaction.amount()),
-                df.format(runningBalance));
+        int yearMonth = parser.parseYearMonth(1);
+        if (yearMonth == LineParser.INVALID_YEAR_MONTH) {
+            throw new TransactionRejectedException(RejectReason.INVALID_YEAR_MONTH);
+        }
+        renderer.render(buildStatement(ledger, account, yearMonth / 100, yearMonth % 100));
     }
 
-    private static BigDecimal updateBalance(BigDecimal balance, Transaction t) {
-        return t.type() == 'D' ? balance.add(t.amount()) : balance.subtract(t.amount());
+    // Built under the account's read lock, so the opening balance, the transactions and the interest all come
+    // from the same point in time even while other threads keep appending
+    public static Statement buildStatement(Account account, RuleTimeline interestRules, int year, int month) {
+        return account.withReadLock(() -> buildStatementLocked(account, interestRules, year, month));
     }
 
-    private static BigDecimal calculateOpeningBalance(List<Transaction> transactions, LocalDate startDate) {
-        BigDecimal balance = BigDecimal.ZERO;
-        for (Transaction t : transactions) {
-            if (t.date().isBefore(startDate)) {
-                balance = updateBalance(balance, t);
-            }
-        }
-        return balance;
+    // As buildStatement, with the opening balance and interest taken from the ledger's statement cache
+    public static Statement buildStatement(Ledger ledger, Account account, int year, int month) {
+        return account.withReadLock(() -> {
+            StatementCache.MonthlySummary summary = ledger.getStatementCache().get(account,
+                    ledger.getInterestRules(), year, month);
+            LocalDate startDate = LocalDate.of(year, month, 1);
+            LocalDate endDate = startDate.plusMonths(1).minusDays(1);
+            Transaction interestTransaction = new Transaction(endDate, account.getAccountId(), 'I',
+                    summary.interest(), "           ");
+            return new Statement(account.getAccountId(), summary.openingBalance(),
+                    account.getTransactionsBetween(startDate, endDate), interestTransaction);
+        });
     }
 
-    private static BigDecimal calculateInterest(List<Transaction> transactions,
-                                                List<InterestRule> interestRules,
-                                                int year, int month) {
+    private static Statement buildStatementLocked(Account account, RuleTimeline interestRules, int year, int month) {
         LocalDate startDate = LocalDate.of(year, month, 1);
         LocalDate endDate = startDate.plusMonths(1).minusDays(1);
 
-        Set<LocalDate> significantDates = new TreeSet<>();
-        significantDates.add(startDate);
-        significantDates.add(endDate);
+        BigDecimal openingBalance = account.getBalanceBefore(startDate);
+        List<Transaction> monthTransactions = account.getTransactionsBetween(startDate, endDate);
 
-        for (Transaction t : transactions) {
-            if (!t.date().isBefore(startDate) && !t.date().isAfter(endDate)) {
-                significantDates.add(t.date());
-            }
-        }
+        BigDecimal interest = InterestEngine.calculateInterest(account, interestRules, year, month);
+        Transaction interestTransaction = new Transaction(endDate, account.getAccountId(), 'I', interest,
+                "           ");
 
-        for (InterestRule rule : interestRules) {
-            if (!rule.effectiveDate().isAfter(endDate) && !rule.effectiveDate().isBefore(startDate)) {
-                significantDates.add(rule.effectiveDate());
-            }
-        }
-
-        List<LocalDate> datesList = new ArrayList<>(significantDates);
-        BigDecimal totalInterest = BigDecimal.ZERO;
-
-        //System.out.println("Interest Calculation Breakdown:");
-
-        for (int i = 0; i < datesList.size() - 1; i++) {
-            LocalDate periodStart = datesList.get(i);
-            LocalDate periodEnd = datesList.get(i + 1).minusDays(1);
+        return new Statement(account.getAccountId(), openingBalance, monthTransactions, interestTransaction);
+    }
 
-            if (i == datesList.size() - 2) {
-                periodEnd = endDate;
+    // Every month from first to last, built under one read lock from a single forward sweep: the interest of
+    // all months comes from one pass over the checkpoints and rules, the transactions from one range query
+    // split at month ends, and each opening balance from the previous one plus that month's transactions.
+    // Each month shows the same figures as its own single-month statement.
+    public static RangeStatement buildRangeStatement(Account account, RuleTimeline interestRules,
+                                                     YearMonth first, YearMonth last) {
+        return account.withReadLock(() -> {
+            int months = (int) first.until(last, ChronoUnit.MONTHS) + 1;
+            BigDecimal[] interest = InterestEngine.calculateMonthlyInterest(account, interestRules, first, months);
+            List<Transaction> transactions = account.getTransactionsBetween(first.atDay(1), last.atEndOfMonth());
+
+            List<Statement> statements = new ArrayList<>(months);
+            long openingCents = account.getBalanceCentsBeforeDay((int) first.atDay(1).toEpochDay());
+            BigDecimal totalInterest = BigDecimal.ZERO.setScale(2);
+            int next = 0;
+            for (int m = 0; m < months; m++) {
+                LocalDate endDate = first.plusMonths(m).atEndOfMonth();
+                int from = next;
+                long monthCents = openingCents;
+                while (next < transactions.size() && !transactions.get(next).date().isAfter(endDate)) {
+                    monthCents = updateBalance(monthCents, transactions.get(next++));
+                }
+                Transaction interestTransaction = new Transaction(endDate, account.getAccountId(), 'I',
+                        interest[m], "           ");
+                statements.add(new Statement(account.getAccountId(), Money.fromCents(openingCents),
+                        transactions.subList(from, next), interestTransaction));
+                totalInterest = totalInterest.add(interest[m]);
+                openingCents = monthCents;
             }
+            return new RangeStatement(account.getAccountId(), first, last, statements, totalInterest);
+        });
+    }
 
-            BigDecimal eodBalance = calculateBalanceAtDate(transactions, periodStart);
-            InterestRule applicableRule = findApplicableRule(interestRules, periodStart);
-
-            if (applicableRule != null) {
-                int days = (int) ChronoUnit.DAYS.between(periodStart, periodEnd) + 1;
-                BigDecimal periodInterest = eodBalance
-                        .multiply(applicableRule.rate())
-                        .multiply(new BigDecimal(days))
-                        .divide(new BigDecimal("100"), 4, RoundingMode.HALF_UP);
+    private static YearMonth parseMonth(String text) {
+        try {
+            return YearMonth.parse(text, MONTH_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 
-                //System.out.printf("From %s to %s -> Balance: %.2f, Rate: %.2f%%, Days: %d, Interest: %.2f\n",
-                //        periodStart, periodEnd, eodBalance, applicableRule.rate(), days, periodInterest);
+    private static String getUserInput(Scanner scanner) {
+        System.out.println("\nPlease enter account and month to generate the statement <Account> <Year><Month>");
+        System.out.println("(or <Account> <Year><Month>-<Year><Month> for a range, <Account> YTD [<Year><Month>] for "
+                + "the year to date)");
+        System.out.println("(or enter blank to go back to main menu):");
+        System.out.print("> ");
+        String input = scanner.nextLine().trim();
+        return input.isEmpty() ? null : input;
+    }
 
-                totalInterest = totalInterest.add(periodInterest);
-            }
+    static void printAccountStatement(Statement statement, PrintStream out) {
+        StatementRenderer renderer = StatementRenderer.create(StatementRenderer.Format.TEXT, out);
+        try {
+            renderer.render(statement);
+            renderer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        totalInterest = totalInterest.divide(new BigDecimal("365"), 4, RoundingMode.HALF_UP);
-        //System.out.printf("Total Interest Before Rounding: %.4f\n", totalInterest);
-        totalInterest = totalInterest.setScale(2, RoundingMode.HALF_UP);
-        //System.out.printf("Final Interest After Rounding: %.2f\n", totalInterest);
-
-        return totalInterest;
+    private static long updateBalance(long balanceCents, Transaction t) {
+        long cents = Money.toCents(t.amount());
+        return t.type() == 'D' ? balanceCents + cents : balanceCents - cents;
     }
 
-    private static BigDecimal calculateBalanceAtDate(List<Transaction> transactions, LocalDate date) {
-        BigDecimal balance = BigDecimal.ZERO;
-        for (Transaction t : transactions) {
-            if (!t.date().isAfter(date)) {
-                balance = updateBalance(balance, t);
-            }
-        }
-        return balance;
+    public record RangeStatement(String accountId, YearMonth first, YearMonth last, List<Statement> months,
+                                 BigDecimal totalInterest) {
     }
 
-    private static InterestRule findApplicableRule(List<InterestRule> rules, LocalDate date) {
-        return rules.stream()
-                .filter(rule -> !rule.effectiveDate().isAfter(date))
-                .max(Comparator.comparing(InterestRule::effectiveDate))
-                .orElse(null);
+    public record Statement(String accountId, BigDecimal openingBalance, List<Transaction> transactions,
+                            Transaction interestTransaction) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package org.gerry.solution;
+
+public enum RejectReason {
+    INVALID_FORMAT("Invalid format. Please try again."),
+    INVALID_DATE("Invalid date format. Use YYYYMMdd format."),
+    INVALID_TYPE("Invalid transaction type. Use D for deposit or W for withdrawal."),
+    INVALID_AMOUNT("Invalid amount format."),
+    NON_POSITIVE_AMOUNT("Amount must be greater than zero."),
+    FIRST_WITHDRAWAL("First transaction for an account cannot be a withdrawal."),
+    INSUFFICIENT_FUNDS("Insufficient funds."),
+    INVALID_RATE("Invalid rate format."),
+    RATE_OUT_OF_RANGE("Interest rate must be greater than 0 and less than 100."),
+    ACCOUNT_NOT_FOUND("Account not found."),
+    INVALID_YEAR_MONTH("Invalid year/month format. Use YYYYMM format."),
+    INVALID_RANGE("Invalid year/month range format. Use YYYYMM-YYYYMM format."),
+    RANGE_TOO_LONG("The range must run forwards and cover at most 120 months.");
+
+    private final String message;
+
+    RejectReason(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
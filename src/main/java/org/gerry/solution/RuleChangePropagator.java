@@ -0,0 +1,124 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Works out which monthly interest figures a rule change moves, recomputes only those and reports the old and
+// new amounts.
+//
+// A rule taking effect on E only changes the rate for the days from E up to the day before the next rule takes
+// effect, and only on days the account has a balance, so an (account, month) pair is affected exactly when the
+// account has a non-zero end-of-day balance on one of those days in that month. With no later rule the change
+// runs on indefinitely; it is followed up to the end of the month of the latest transaction in the ledger.
+//
+// Both figures come from private copies of the timeline that differ only by the change, so other rule changes
+// made meanwhile do not show up in the report, and both are computed under the same account read lock.
+public class RuleChangePropagator {
+
+    // Defines the rule through the ledger, then recomputes the affected months across all accounts in parallel
+    public static Report defineRule(Ledger ledger, InterestRule rule) throws IOException {
+        InterestRule replaced = ledger.defineRule(rule);
+        RuleTimeline after = ledger.getInterestRules().copy();
+        after.upsert(rule);
+        RuleTimeline before = after.copy();
+        if (replaced == null) {
+            before.remove(rule.effectiveDate());
+        } else {
+            before.upsert(replaced);
+        }
+        return propagate(ledger, rule, replaced, before, after);
+    }
+
+    private static Report propagate(Ledger ledger, InterestRule rule, InterestRule replaced,
+                                    RuleTimeline before, RuleTimeline after) {
+        LocalDate from = rule.effectiveDate();
+        // Only a replacement with the same rate leaves the periods alone. A new rule at the rate already in force
+        // still splits the month there, and each period's rounding can move the interest by a cent.
+        if (replaced != null && replaced.rate().compareTo(rule.rate()) == 0) {
+            return new Report(rule, replaced, null, null, 0, List.of());
+        }
+
+        Account[] accounts = ledger.getAccounts().values().toArray(new Account[0]);
+        int fromDay = (int) from.toEpochDay();
+        int toDay;
+        InterestRule next = after.getRuleAfter(from);
+        if (next != null) {
+            toDay = (int) next.effectiveDate().toEpochDay() - 1;
+        } else {
+            int lastDay = Integer.MIN_VALUE;
+            for (Account account : accounts) {
+                lastDay = Math.max(lastDay, account.withReadLock(() -> account.getCheckpointCount() == 0
+                        ? Integer.MIN_VALUE : account.getCheckpointDay(account.getCheckpointCount() - 1)));
+            }
+            toDay = lastDay == Integer.MIN_VALUE ? Integer.MIN_VALUE
+                    : (int) YearMonth.from(LocalDate.ofEpochDay(lastDay)).atEndOfMonth().toEpochDay();
+            if (toDay < fromDay) {
+                return new Report(rule, replaced, null, null, 0, List.of());
+            }
+        }
+
+        LongAdder recomputed = new LongAdder();
+        List<InterestChange> changes = Arrays.stream(accounts)
+                .parallel()
+                .flatMap(account -> recompute(account, before, after, fromDay, toDay, recomputed).stream())
+                .sorted(Comparator.comparing(InterestChange::accountId).thenComparing(InterestChange::month))
+                .toList();
+        return new Report(rule, replaced, from, LocalDate.ofEpochDay(toDay), recomputed.sum(), changes);
+    }
+
+    private static List<InterestChange> recompute(Account account, RuleTimeline before, RuleTimeline after,
+                                                  int fromDay, int toDay, LongAdder recomputed) {
+        return account.withReadLock(() -> {
+            List<InterestChange> changes = new ArrayList<>();
+            YearMonth month = YearMonth.from(LocalDate.ofEpochDay(fromDay));
+            while (month.atDay(1).toEpochDay() <= toDay) {
+                int start = Math.max(fromDay, (int) month.atDay(1).toEpochDay());
+                int end = Math.min(toDay, (int) month.atEndOfMonth().toEpochDay());
+                if (hasBalanceBetween(account, start, end)) {
+                    recomputed.increment();
+                    BigDecimal oldInterest = InterestEngine.calculateInterest(account, before,
+                            month.getYear(), month.getMonthValue());
+                    BigDecimal newInterest = InterestEngine.calculateInterest(account, after,
+                            month.getYear(), month.getMonthValue());
+                    if (oldInterest.compareTo(newInterest) != 0) {
+                        changes.add(new InterestChange(account.getAccountId(), month, oldInterest, newInterest));
+                    }
+                }
+                month = month.plusMonths(1);
+            }
+            return changes;
+        });
+    }
+
+    // Whether the end-of-day balance is non-zero on any day in [startDay, endDay]; the caller holds the read lock
+    private static boolean hasBalanceBetween(Account account, int startDay, int endDay) {
+        if (account.getBalanceCentsAtDay(startDay) != 0) {
+            return true;
+        }
+        int count = account.getCheckpointCount();
+        for (int i = account.firstCheckpointOnOrAfter(startDay + 1);
+             i < count && account.getCheckpointDay(i) <= endDay; i++) {
+            if (account.getCheckpointCents(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // from and to bound the days whose rate changed, both null when no figure could have moved. recomputed is
+    // the number of (account, month) figures worked out again; changes lists those whose amount differs.
+    public record Report(InterestRule rule, InterestRule replaced, LocalDate from, LocalDate to, long recomputed,
+                         List<InterestChange> changes) {
+    }
+
+    public record InterestChange(String accountId, YearMonth month, BigDecimal oldInterest, BigDecimal newInterest) {
+    }
+}
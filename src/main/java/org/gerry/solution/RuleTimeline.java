@@ -0,0 +1,148 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Interest rules keyed by effective date; at most one rule per date. Safe to share between threads: readers get
+// copies, so a rule defined while a statement is being built never changes the rules that statement sees.
+public class RuleTimeline implements Iterable<InterestRule> {
+    private final TreeMap<LocalDate, InterestRule> rulesByDate = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Adds the rule, replacing any rule with the same effective date. Returns the replaced rule, if any.
+    public InterestRule upsert(InterestRule rule) {
+        lock.writeLock().lock();
+        try {
+            return rulesByDate.put(rule.effectiveDate(), rule);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public InterestRule getRule(LocalDate effectiveDate) {
+        lock.readLock().lock();
+        try {
+            return rulesByDate.get(effectiveDate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Removes the rule taking effect on the given date. Returns it, or null if there was none.
+    public InterestRule remove(LocalDate effectiveDate) {
+        lock.writeLock().lock();
+        try {
+            return rulesByDate.remove(effectiveDate);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Latest rule that took effect on or before the given date, or null if none applies yet
+    public InterestRule getRuleInForce(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            Map.Entry<LocalDate, InterestRule> entry = rulesByDate.floorEntry(date);
+            return entry == null ? null : entry.getValue();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Earliest rule taking effect after the given date, or null if there is none
+    public InterestRule getRuleAfter(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            Map.Entry<LocalDate, InterestRule> entry = rulesByDate.higherEntry(date);
+            return entry == null ? null : entry.getValue();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rules taking effect within [from, to], in date order
+    public Collection<InterestRule> getRulesBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(rulesByDate.subMap(from, true, to, true).values()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The rule in force on from followed by the rules taking effect within (from, to], read together so a
+    // concurrent upsert cannot land between the two lookups. The first entry is null if no rule applies yet.
+    public List<InterestRule> getRulesForPeriod(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<InterestRule> rules = new ArrayList<>();
+            Map.Entry<LocalDate, InterestRule> inForce = rulesByDate.floorEntry(from);
+            rules.add(inForce == null ? null : inForce.getValue());
+            rules.addAll(rulesByDate.subMap(from, false, to, true).values());
+            return rules;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Independent timeline with the same rules, for working out what a change would do
+    public RuleTimeline copy() {
+        RuleTimeline copy = new RuleTimeline();
+        lock.readLock().lock();
+        try {
+            copy.rulesByDate.putAll(rulesByDate);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return copy;
+    }
+
+    public InterestRule first() {
+        lock.readLock().lock();
+        try {
+            return rulesByDate.isEmpty() ? null : rulesByDate.firstEntry().getValue();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rulesByDate.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rulesByDate.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<InterestRule> iterator() {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(rulesByDate.values())).iterator();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package org.gerry.solution;
+
+import org.gerry.solution.StatementRenderer.Format;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Runs the batch commands against several ShardWorker processes on this machine instead of one ledger. Each
+// account lives on the shard its id hashes to, so T and P go to that shard alone; interest rules are defined on
+// every shard, and a month-end run asks every shard for its statements and merges them in account order. The
+// workers are started as child JVMs on the same class path and reached over loopback sockets.
+//
+// Transaction ids are allocated here, per date across all shards, and handed to the shard with the transaction,
+// so they come out exactly as a single ledger numbers them. A shard rejects before using its id, and the
+// coordinator only moves past an id once it knows the shard will accept it.
+//
+// Transactions are pipelined: each shard answers in request order, so up to MAX_IN_FLIGHT of them are sent
+// before the oldest answer is read, and requests and answers are flushed only when the other side would
+// otherwise wait. The one answer a later line can depend on is whether a withdrawal took its date's id, so
+// only the next line for that date waits for it. Any other command first waits for every transaction, and a
+// broadcast is sent to every shard before any answer is read, so the shards work on it in parallel.
+public class ShardCoordinator implements BatchRunner.Commands, Closeable {
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    private final Shard[] shards;
+    private final TransactionIds transactionIds = new TransactionIds();
+    private final LineParser parser = new LineParser();
+    // Shard of the unanswered withdrawal for each date that has one; there is at most one per date
+    private final Map<Integer, Shard> pendingWithdrawals = new HashMap<>();
+    private final List<BatchRunner.Rejection> rejections = new ArrayList<>();
+
+    private ShardCoordinator(Shard[] shards) {
+        this.shards = shards;
+    }
+
+    // Starts the workers and connects to them. With a journal, shard k keeps its own journal at
+    // <journal>.shard<k>, group committed as with --sync-batch and --sync-wait-ms, and the transaction ids carry
+    // on from what the shards recovered.
+    public static ShardCoordinator launch(int shardCount, Format format, Path journal, int syncBatch,
+            Duration syncWait) throws IOException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        // Checked here as the worker's GroupCommitLog would, so a bad value fails before any JVM starts
+        if (syncBatch < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        if (syncWait.isNegative()) {
+            throw new IllegalArgumentException("Maximum wait must not be negative");
+        }
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        Shard[] shards = new Shard[shardCount];
+        try {
+            // All workers start before any is waited for, so the JVMs boot side by side
+            for (int k = 0; k < shardCount; k++) {
+                List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                        ShardWorker.class.getName(), "--format", format.name()));
+                if (journal != null) {
+                    command.addAll(List.of("--journal", journal + ".shard" + k,
+                            "--sync-batch", String.valueOf(syncBatch),
+                            "--sync-wait-ms", String.valueOf(syncWait.toMillis())));
+                }
+                processes.add(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+            }
+            for (int k = 0; k < shardCount; k++) {
+                shards[k] = Shard.connect(k, processes.get(k));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+            throw e;
+        }
+
+        ShardCoordinator coordinator = new ShardCoordinator(shards);
+        try {
+            coordinator.restoreTransactionIds();
+        } catch (IOException | TransactionRejectedException e) {
+            coordinator.close();
+            throw e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+        }
+        return coordinator;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Shard holding the account
+    public int shardOf(String accountId) {
+        int hash = accountId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    // As submitTransaction, then waits for every outstanding transaction and throws the first rejection
+    @Override
+    public synchronized void recordTransaction(CharSequence input) throws TransactionRejectedException, IOException {
+        submitTransaction(input, 0);
+        List<BatchRunner.Rejection> rejected = awaitTransactions();
+        if (!rejected.isEmpty()) {
+            throw rejected.get(0).exception();
+        }
+    }
+
+    // Sends the transaction to its account's shard without waiting for the answer. The shard rejects a line
+    // that fails these field checks without using an id, and always applies a deposit that passes them, so
+    // either way the id is settled now. A withdrawal takes its id only if the balance allows, which the shard
+    // decides, so the date's id is settled when that answer is read.
+    @Override
+    public synchronized void submitTransaction(CharSequence input, long lineNumber) throws IOException {
+        int tokenCount = parser.tokenize(input);
+        // Malformed lines go to any shard; it rejects them just as a single ledger would
+        Shard shard = shards[tokenCount >= 2 ? shardOf(parser.tokenString(1)) : 0];
+        long epochDay = tokenCount == 4 ? parser.parseEpochDay(0) : LineParser.INVALID;
+        char type = tokenCount == 4 ? parser.upperFirstChar(2) : 0;
+        long cents = tokenCount == 4 ? parser.parseCents(3) : LineParser.INVALID;
+
+        int sequence = 0;
+        if (epochDay != LineParser.INVALID && (type == 'D' || type == 'W') && cents != LineParser.INVALID
+                && cents > 0) {
+            int day = (int) epochDay;
+            awaitWithdrawal(day);
+            sequence = transactionIds.get(day) + 1;
+            if (type == 'D') {
+                transactionIds.restore(day, sequence);
+            } else {
+                pendingWithdrawals.put(day, shard);
+            }
+        }
+        shard.write("T " + sequence + " " + input);
+        shard.outstanding.add(new Pending(lineNumber, (int) epochDay, sequence, type == 'W'));
+        while (shard.outstanding.size() > MAX_IN_FLIGHT) {
+            complete(shard);
+        }
+    }
+
+    @Override
+    public synchronized List<BatchRunner.Rejection> awaitTransactions() throws IOException {
+        awaitOutstanding();
+        rejections.sort(Comparator.comparingLong(BatchRunner.Rejection::lineNumber));
+        List<BatchRunner.Rejection> rejected = List.copyOf(rejections);
+        rejections.clear();
+        return rejected;
+    }
+
+    @Override
+    public synchronized void defineRule(CharSequence input) throws TransactionRejectedException, IOException {
+        awaitOutstanding();
+        broadcast("I " + input);
+    }
+
+    @Override
+    public synchronized void renderStatement(CharSequence input, StatementRenderer renderer)
+            throws TransactionRejectedException, IOException {
+        awaitOutstanding();
+        int shard = parser.tokenize(input) >= 1 ? shardOf(parser.tokenString(0)) : 0;
+        shards[shard].send("P " + input);
+        renderer.renderRendered(shards[shard].receive());
+    }
+
+    // Every shard renders its own accounts' statements, in parallel, and they are merged by account id
+    @Override
+    public synchronized void renderMonthEnd(CharSequence input, StatementRenderer renderer)
+            throws TransactionRejectedException, IOException {
+        awaitOutstanding();
+        String[] bodies = broadcast("M " + input);
+        int[] positions = new int[bodies.length];
+        while (true) {
+            int next = -1;
+            String nextId = null;
+            for (int k = 0; k < bodies.length; k++) {
+                if (positions[k] < bodies[k].length()) {
+                    String accountId = bodies[k].substring(positions[k], bodies[k].indexOf(' ', positions[k]));
+                    if (nextId == null || accountId.compareTo(nextId) < 0) {
+                        next = k;
+                        nextId = accountId;
+                    }
+                }
+            }
+            if (next < 0) {
+                return;
+            }
+            String body = bodies[next];
+            int space = body.indexOf(' ', positions[next]);
+            int newline = body.indexOf('\n', space);
+            int start = newline + 1;
+            int end = start + Integer.parseInt(body, space + 1, newline, 10);
+            renderer.renderRendered(body.substring(start, end));
+            positions[next] = end;
+        }
+    }
+
+    // Asks every shard to stop and waits for the processes to exit
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        try {
+            awaitOutstanding();
+        } catch (IOException e) {
+            failure = e;
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.stop();
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Reads the answer to the oldest outstanding transaction on the shard
+    private void complete(Shard shard) throws IOException {
+        Pending pending = shard.outstanding.remove();
+        boolean accepted;
+        try {
+            shard.receive();
+            accepted = true;
+        } catch (TransactionRejectedException e) {
+            rejections.add(new BatchRunner.Rejection(pending.lineNumber(), e));
+            accepted = false;
+        }
+        if (pending.withdrawal() && pending.sequence() > 0) {
+            pendingWithdrawals.remove(pending.epochDay());
+            if (accepted) {
+                transactionIds.restore(pending.epochDay(), pending.sequence());
+            }
+        } else if (accepted != pending.sequence() > 0) {
+            // The ids sent after it would be out of step with a single ledger's
+            throw new IOException("Shard " + shard.index + " answered line " + pending.lineNumber()
+                    + " differently from the coordinator's checks");
+        }
+    }
+
+    // Waits until the date's withdrawal, if one is unanswered, has taken or passed on its id
+    private void awaitWithdrawal(int epochDay) throws IOException {
+        Shard shard = pendingWithdrawals.get(epochDay);
+        while (shard != null && pendingWithdrawals.containsKey(epochDay)) {
+            complete(shard);
+        }
+    }
+
+    private void awaitOutstanding() throws IOException {
+        for (Shard shard : shards) {
+            while (!shard.outstanding.isEmpty()) {
+                complete(shard);
+            }
+        }
+    }
+
+    // Sends the request to every shard, then reads every answer. All shards validate the same way, so a
+    // rejection from one is a rejection from all; the first is reported.
+    private String[] broadcast(String request) throws TransactionRejectedException, IOException {
+        for (Shard shard : shards) {
+            shard.send(request);
+        }
+        String[] bodies = new String[shards.length];
+        TransactionRejectedException rejection = null;
+        IOException failure = null;
+        for (int k = 0; k < shards.length; k++) {
+            try {
+                bodies[k] = shards[k].receive();
+            } catch (TransactionRejectedException e) {
+                rejection = rejection == null ? e : rejection;
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (rejection != null) {
+            throw rejection;
+        }
+        return bodies;
+    }
+
+    private void restoreTransactionIds() throws TransactionRejectedException, IOException {
+        for (String body : broadcast("S")) {
+            for (String line : body.split("\n")) {
+                if (!line.isEmpty()) {
+                    int space = line.indexOf(' ');
+                    transactionIds.restore(Integer.parseInt(line, 0, space, 10),
+                            Integer.parseInt(line, space + 1, line.length(), 10));
+                }
+            }
+        }
+    }
+
+    // A transaction sent to a shard and not answered yet, with the id sequence it was sent with
+    private record Pending(long lineNumber, int epochDay, int sequence, boolean withdrawal) {
+    }
+
+    private static class Shard {
+        private final Deque<Pending> outstanding = new ArrayDeque<>();
+        private final int index;
+        private final Process process;
+        private final Socket socket;
+        private final BufferedReader responses;
+        private final Writer requests;
+
+        private Shard(int index, Process process, Socket socket) throws IOException {
+            this.index = index;
+            this.process = process;
+            this.socket = socket;
+            this.responses = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            this.requests = new BufferedWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        // The worker prints its port once it is listening
+        static Shard connect(int index, Process process) throws IOException {
+            BufferedReader output = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String port = output.readLine();
+            if (port == null) {
+                throw new IOException("Shard " + index + " did not start");
+            }
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(port.trim()));
+            socket.setTcpNoDelay(true);
+            return new Shard(index, process, socket);
+        }
+
+        void send(String request) throws IOException {
+            write(request);
+            requests.flush();
+        }
+
+        // Buffers the request; it goes out when the buffer fills or an answer is waited for
+        void write(String request) throws IOException {
+            requests.write(request);
+            requests.write('\n');
+        }
+
+        // Output of the oldest unanswered request, or the shard's rejection
+        String receive() throws TransactionRejectedException, IOException {
+            requests.flush();
+            String status = responses.readLine();
+            if (status == null) {
+                throw new IOException("Shard " + index + " closed the connection");
+            }
+            if (status.startsWith("OK ")) {
+                char[] body = new char[Integer.parseInt(status, 3, status.length(), 10)];
+                int read = 0;
+                while (read < body.length) {
+                    int count = responses.read(body, read, body.length - read);
+                    if (count < 0) {
+                        throw new IOException("Shard " + index + " closed the connection");
+                    }
+                    read += count;
+                }
+                return new String(body);
+            }
+            if (status.startsWith("REJECTED ")) {
+                int space = status.indexOf(' ', 9);
+                throw new TransactionRejectedException(RejectReason.valueOf(status.substring(9, space)),
+                        status.substring(space + 1));
+            }
+            throw new IOException("Shard " + index + ": " + status.substring(status.indexOf(' ') + 1));
+        }
+
+        void stop() throws IOException {
+            try {
+                send("Q");
+                socket.close();
+                if (!process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IOException("Shard " + index + " did not stop");
+                }
+                if (process.exitValue() != 0) {
+                    throw new IOException("Shard " + index + " exited with status " + process.exitValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while stopping shard " + index, e);
+            } finally {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
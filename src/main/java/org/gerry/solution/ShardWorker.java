@@ -0,0 +1,154 @@
+package org.gerry.solution;
+
+import org.gerry.solution.StatementRenderer.Format;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+// One shard of a sharded deployment: a process holding the ledger of the accounts that hash to it, started and
+// driven by a ShardCoordinator over a loopback socket. On start it prints the port it listens on, serves the one
+// coordinator connection, and exits when the connection closes or Q arrives.
+//
+// Requests are single lines:
+//
+//     T <Sequence> <Date> <Account> <Type> <Amount>   the coordinator's transaction id sequence for the date,
+//                                                      or 0 when the date is invalid
+//     I <Date> <RuleId> <Rate in %>
+//     P <Account> <Year><Month>                        or a range/YTD as at the statement prompt
+//     M <Year><Month>                                  every account's statement, as "<Account> <Length>\n<Text>"
+//     S                                                last sequence of each date, as "<Epoch day> <Sequence>\n"
+//     Q
+//
+// and each gets one response: "OK <Length>\n" followed by that many characters of output (statements are
+// rendered in the worker's format), "REJECTED <Reason> <Message>\n" or "FAILED <Message>\n". Responses come in
+// request order and are flushed once no further request is waiting, so a pipelined run gets them in batches.
+public class ShardWorker {
+
+    // Arguments: --format text|csv|json and optionally --journal <file> with --sync-batch and --sync-wait-ms
+    public static void main(String[] args) {
+        Format format = Format.fromName(BankAccountInterest.getOption(args, "--format", "text"));
+        String journalPath = BankAccountInterest.getOption(args, "--journal", null);
+        Ledger ledger = new Ledger();
+        ledger.getInterestRules().upsert(BankAccountInterest.DEFAULT_INTEREST_RULE);
+
+        try {
+            if (journalPath != null) {
+                ledger.openJournal(Path.of(journalPath),
+                        Integer.parseInt(BankAccountInterest.getOption(args, "--sync-batch", "64")),
+                        Duration.ofMillis(Long.parseLong(BankAccountInterest.getOption(args, "--sync-wait-ms", "2"))));
+            }
+            try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                System.out.println(server.getLocalPort());
+                System.out.flush();
+                try (Socket socket = server.accept()) {
+                    socket.setTcpNoDelay(true);
+                    BufferedReader requests = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+                    Writer responses = new BufferedWriter(
+                            new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+                    serve(requests, responses, ledger, format == null ? Format.TEXT : format);
+                }
+            }
+            ledger.closeJournal();
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Shard worker failed: " + e.getMessage());
+            System.exit(BatchRunner.EXIT_FAILED);
+        }
+    }
+
+    // Answers requests until the connection closes or Q arrives
+    public static void serve(BufferedReader requests, Writer responses, Ledger ledger, Format format)
+            throws IOException {
+        LineParser parser = new LineParser();
+        StringWriter body = new StringWriter();
+        StatementRenderer renderer = StatementRenderer.create(format, body);
+
+        String line;
+        while ((line = requests.readLine()) != null && !line.equals("Q")) {
+            body.getBuffer().setLength(0);
+            String status;
+            try {
+                execute(line, parser, ledger, renderer, body);
+                status = "OK " + body.getBuffer().length();
+            } catch (TransactionRejectedException e) {
+                status = "REJECTED " + e.getReason().name() + " " + e.getMessage();
+                body.getBuffer().setLength(0);
+            } catch (IOException | RuntimeException e) {
+                status = "FAILED " + String.valueOf(e.getMessage()).replace('\n', ' ');
+                body.getBuffer().setLength(0);
+            }
+            responses.write(status);
+            responses.write('\n');
+            responses.append(body.getBuffer());
+            if (!requests.ready()) {
+                responses.flush();
+            }
+        }
+        responses.flush();
+    }
+
+    private static void execute(String line, LineParser parser, Ledger ledger, StatementRenderer renderer,
+                                StringWriter body) throws TransactionRejectedException, IOException {
+        char command = line.isEmpty() ? 0 : line.charAt(0);
+        CharBuffer payload = CharBuffer.wrap(line, Math.min(1, line.length()), line.length());
+        switch (command) {
+            case 'T' -> recordTransaction(line, parser, ledger);
+            case 'I' -> DefineInterestRules.defineRule(parser, payload, ledger);
+            case 'P' -> {
+                PrintStatement.renderStatement(parser, payload, ledger, renderer);
+                renderer.flush();
+            }
+            case 'M' -> renderMonthEnd(parser, payload, ledger, renderer.getFormat(), body);
+            case 'S' -> {
+                for (long id : ledger.getTransactionIds().toArray()) {
+                    body.append(String.valueOf(TransactionIds.epochDay(id))).append(' ')
+                            .append(String.valueOf(TransactionIds.sequence(id))).append('\n');
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown request: " + line);
+        }
+    }
+
+    // Takes the coordinator's sequence for the date, so ids run across shards as they would in one ledger
+    private static void recordTransaction(String line, LineParser parser, Ledger ledger)
+            throws TransactionRejectedException {
+        int space = line.indexOf(' ', 2);
+        if (space < 0) {
+            throw new IllegalArgumentException("Missing transaction sequence: " + line);
+        }
+        int sequence = Integer.parseInt(line, 2, space, 10);
+        CharBuffer payload = CharBuffer.wrap(line, space, line.length());
+        if (sequence > 0 && parser.tokenize(payload) == 4) {
+            long epochDay = parser.parseEpochDay(0);
+            if (epochDay != LineParser.INVALID) {
+                ledger.getTransactionIds().restore((int) epochDay, sequence - 1);
+            }
+        }
+        InputTransaction.recordTransaction(parser, payload, ledger);
+    }
+
+    private static void renderMonthEnd(LineParser parser, CharSequence payload, Ledger ledger, Format format,
+                                       StringWriter body) throws TransactionRejectedException {
+        int yearMonth = MonthEndStatementRun.parseMonth(parser, payload);
+        String[] accountIds = MonthEndStatementRun.sortedAccountIds(ledger.getAccounts());
+        String[] statements = MonthEndStatementRun.renderStatements(ledger.getAccounts(), accountIds,
+                ledger.getInterestRules(), yearMonth / 100, yearMonth % 100, format, ForkJoinPool.commonPool());
+        for (int i = 0; i < accountIds.length; i++) {
+            body.append(accountIds[i]).append(' ').append(String.valueOf(statements[i].length())).append('\n')
+                    .append(statements[i]);
+        }
+    }
+}
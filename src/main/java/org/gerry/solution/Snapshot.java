@@ -0,0 +1,210 @@
+package org.gerry.solution;
+
+import org.gerry.solution.Account.Columns;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+// Binary image of the whole ledger at one point in the journal, so startup can load it and replay only the
+// journal written after it.
+//
+//     header    int magic, int version, long journal position, int rules, int counters, int accounts
+//     rules     int epoch day, text rule id, int scale, bytes unscaled rate
+//     counters  text yyyyMMdd, int last sequence
+//     accounts  text account id, int transactions, long balance in cents,
+//               then the day, cents, type and sequence columns, each stored contiguously
+//     trailer   int crc32c of everything before it
+//
+// where text and bytes are a short length followed by the (UTF-8) bytes. The file is written to a temporary
+// file and moved into place, so a crash while writing leaves the previous snapshot intact.
+public class Snapshot {
+    private static final int MAGIC = 0x42414953; // "BAIS"
+    private static final int VERSION = 1;
+
+    // What a snapshot holds and where in the journal it was taken
+    public record Summary(long journalPosition, int accounts, long transactions) {
+    }
+
+    // State captured at the cut; the columns are prefixes of the live arrays, not copies
+    record State(long journalPosition, List<InterestRule> rules, long[] counters,
+                 Map<String, Columns> accounts) {
+    }
+
+    static Summary write(State state, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long transactions = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream file = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            CRC32C crc = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(file, crc));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(state.journalPosition());
+            out.writeInt(state.rules().size());
+            out.writeInt(state.counters().length);
+            out.writeInt(state.accounts().size());
+
+            for (InterestRule rule : state.rules()) {
+                out.writeInt((int) rule.effectiveDate().toEpochDay());
+                writeBytes(out, rule.ruleId().getBytes(StandardCharsets.UTF_8));
+                out.writeInt(rule.rate().scale());
+                writeBytes(out, rule.rate().unscaledValue().toByteArray());
+            }
+            for (long counter : state.counters()) {
+                writeBytes(out, TransactionIds.formatDate(TransactionIds.epochDay(counter))
+                        .getBytes(StandardCharsets.UTF_8));
+                out.writeInt(TransactionIds.sequence(counter));
+            }
+
+            ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+            for (Map.Entry<String, Columns> entry : state.accounts().entrySet()) {
+                Columns columns = entry.getValue();
+                int count = columns.count();
+                writeBytes(out, entry.getKey().getBytes(StandardCharsets.UTF_8));
+                out.writeInt(count);
+                out.writeLong(columns.balanceCents());
+                writeInts(out, chunk, columns.days(), count);
+                writeLongs(out, chunk, columns.amountCents(), count);
+                out.write(columns.types(), 0, count);
+                writeInts(out, chunk, columns.sequences(), count);
+                transactions += count;
+            }
+
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            file.flush();
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Summary(state.journalPosition(), state.accounts().size(), transactions);
+    }
+
+    // Maps the snapshot and loads it into the ledger. The checksum is verified before anything is loaded.
+    static Summary load(Path path, Ledger ledger) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 32 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a ledger snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a ledger snapshot: " + path);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+                throw new IOException("Snapshot checksum does not match: " + path);
+            }
+
+            try {
+                return read(buffer.position(8), ledger);
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt snapshot: " + path, e);
+            }
+        }
+    }
+
+    private static Summary read(ByteBuffer in, Ledger ledger) throws IOException {
+        long journalPosition = in.getLong();
+        int ruleCount = in.getInt();
+        int counterCount = in.getInt();
+        int accountCount = in.getInt();
+
+        for (int i = 0; i < ruleCount; i++) {
+            LocalDate effectiveDate = LocalDate.ofEpochDay(in.getInt());
+            String ruleId = new String(readBytes(in), StandardCharsets.UTF_8);
+            int scale = in.getInt();
+            BigDecimal rate = new BigDecimal(new BigInteger(readBytes(in)), scale);
+            ledger.getInterestRules().upsert(new InterestRule(effectiveDate, ruleId, rate));
+        }
+        for (int i = 0; i < counterCount; i++) {
+            LocalDate date = LocalDate.parse(new String(readBytes(in), StandardCharsets.UTF_8),
+                    DateTimeFormatter.BASIC_ISO_DATE);
+            ledger.getTransactionIds().restore((int) date.toEpochDay(), in.getInt());
+        }
+
+        long transactions = 0;
+        for (int i = 0; i < accountCount; i++) {
+            String accountId = new String(readBytes(in), StandardCharsets.UTF_8);
+            int count = in.getInt();
+            long balanceCents = in.getLong();
+            int[] days = new int[count];
+            long[] amountCents = new long[count];
+            byte[] types = new byte[count];
+            int[] sequences = new int[count];
+            in.slice(in.position(), count * 4).asIntBuffer().get(days);
+            in.position(in.position() + count * 4);
+            in.slice(in.position(), count * 8).asLongBuffer().get(amountCents);
+            in.position(in.position() + count * 8);
+            in.get(types);
+            in.slice(in.position(), count * 4).asIntBuffer().get(sequences);
+            in.position(in.position() + count * 4);
+
+            Account account = Account.restore(accountId,
+                    new Columns(days, amountCents, types, sequences, count, balanceCents));
+            if (account.getBalanceCents() != balanceCents) {
+                throw new IOException("Snapshot balance does not match the transactions of account " + accountId);
+            }
+            ledger.getAccounts().put(accountId, account);
+            transactions += count;
+        }
+        return new Summary(journalPosition, accountCount, transactions);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Value is too long for a snapshot");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return bytes;
+    }
+
+    // Columns go through a reusable buffer rather than one stream call per value
+    private static void writeInts(DataOutputStream out, ByteBuffer chunk, int[] values, int count) throws IOException {
+        for (int from = 0; from < count; ) {
+            int n = Math.min(count - from, chunk.capacity() / 4);
+            chunk.clear();
+            chunk.asIntBuffer().put(values, from, n);
+            out.write(chunk.array(), 0, n * 4);
+            from += n;
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, ByteBuffer chunk, long[] values, int count)
+            throws IOException {
+        for (int from = 0; from < count; ) {
+            int n = Math.min(count - from, chunk.capacity() / 8);
+            chunk.clear();
+            chunk.asLongBuffer().put(values, from, n);
+            out.write(chunk.array(), 0, n * 8);
+            from += n;
+        }
+    }
+}
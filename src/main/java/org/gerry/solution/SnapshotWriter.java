@@ -0,0 +1,36 @@
+package org.gerry.solution;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Writes a snapshot of the ledger on a background thread at a fixed interval, and a last one on close. Failures
+// are reported to the given stream, which in batch mode is standard error so statements stay clean.
+public class SnapshotWriter implements Closeable {
+    private final Ledger ledger;
+    private final Path path;
+    private final PrintStream errors;
+    private final PeriodicTask task;
+
+    public SnapshotWriter(Ledger ledger, Path path, Duration interval, PrintStream errors) {
+        this.ledger = ledger;
+        this.path = path;
+        this.errors = errors;
+        this.task = new PeriodicTask("Snapshot", "ledger-snapshot", interval, this::writeSnapshot);
+    }
+
+    @Override
+    public void close() {
+        task.close();
+    }
+
+    private void writeSnapshot() {
+        try {
+            ledger.writeSnapshot(path);
+        } catch (IOException | RuntimeException e) {
+            errors.println("Error writing snapshot: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.gerry.solution;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Bounded LRU cache of each account's monthly figures, so reprinting a statement does not recompute its interest.
+//
+// An entry for month M only changes when a transaction dated in or before M is added to that account, or when a
+// rule taking effect on or before the end of M is defined, so those are the only things that drop it. The ledger
+// calls invalidateAccount under the account's write lock, and entries are computed and stored under its read
+// lock, so a stale figure can never be stored after the invalidation that should have removed it. Rule changes
+// bump a version instead, and a figure computed against an older version is not stored.
+public class StatementCache {
+    private final int maxEntries;
+    private final LinkedHashMap<Key, MonthlySummary> entries;
+    // Cached months per account, for dropping a month and everything after it
+    private final Map<Integer, TreeSet<Integer>> monthsByAccount = new HashMap<>();
+    private long rulesVersion;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public StatementCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, MonthlySummary> eldest) {
+                if (size() <= StatementCache.this.maxEntries) {
+                    return false;
+                }
+                forgetMonth(eldest.getKey());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    // Opening balance, interest and closing balance (including the interest) of the account for the month
+    // Accounts outside a ledger have no handle and are never cached.
+    public MonthlySummary get(Account account, RuleTimeline interestRules, int year, int month) {
+        if (account.getHandle() < 0) {
+            return account.withReadLock(() -> compute(account, interestRules, year, month));
+        }
+        Key key = new Key(account.getHandle(), year * 100 + month);
+        long version;
+        synchronized (this) {
+            MonthlySummary cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            version = rulesVersion;
+        }
+
+        return account.withReadLock(() -> {
+            MonthlySummary summary = compute(account, interestRules, year, month);
+            synchronized (this) {
+                if (version == rulesVersion) {
+                    entries.put(key, summary);
+                    monthsByAccount.computeIfAbsent(key.accountHandle(), handle -> new TreeSet<>()).add(key.yearMonth());
+                }
+            }
+            return summary;
+        });
+    }
+
+    // A transaction dated on the given day was added to the account
+    public synchronized void invalidateAccount(int accountHandle, int epochDay) {
+        TreeSet<Integer> months = monthsByAccount.get(accountHandle);
+        if (months == null) {
+            return;
+        }
+        Iterator<Integer> affected = months.tailSet(yearMonthOf(epochDay)).iterator();
+        while (affected.hasNext()) {
+            entries.remove(new Key(accountHandle, affected.next()));
+            affected.remove();
+        }
+        if (months.isEmpty()) {
+            monthsByAccount.remove(accountHandle);
+        }
+    }
+
+    // A rule taking effect on the given date was defined or replaced
+    public synchronized void invalidateRules(LocalDate effectiveDate) {
+        rulesVersion++;
+        int fromYearMonth = effectiveDate.getYear() * 100 + effectiveDate.getMonthValue();
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (key.yearMonth() >= fromYearMonth) {
+                keys.remove();
+                forgetMonth(key);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        rulesVersion++;
+        entries.clear();
+        monthsByAccount.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static MonthlySummary compute(Account account, RuleTimeline interestRules, int year, int month) {
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        int startDay = (int) startDate.toEpochDay();
+        int endDay = (int) startDate.plusMonths(1).minusDays(1).toEpochDay();
+        BigDecimal interest = InterestEngine.calculateInterest(account, interestRules, year, month);
+        long closingCents = account.getBalanceCentsAtDay(endDay) + Money.toCents(interest);
+        return new MonthlySummary(Money.fromCents(account.getBalanceCentsBeforeDay(startDay)), interest,
+                Money.fromCents(closingCents));
+    }
+
+    private void forgetMonth(Key key) {
+        TreeSet<Integer> months = monthsByAccount.get(key.accountHandle());
+        if (months != null && months.remove(key.yearMonth()) && months.isEmpty()) {
+            monthsByAccount.remove(key.accountHandle());
+        }
+    }
+
+    private static int yearMonthOf(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    public record MonthlySummary(BigDecimal openingBalance, BigDecimal interest, BigDecimal closingBalance) {
+    }
+
+    private record Key(int accountHandle, int yearMonth) {
+    }
+}
@@ -0,0 +1,509 @@
+package org.gerry.solution;
+
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.PrintStatement.RangeStatement;
+import org.gerry.solution.PrintStatement.Statement;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+// Streams statements and transaction lists to a Writer in one of several formats. Each renderer builds its
+// output in one reusable buffer and hands it to the writer in chunks, formatting dates and amounts by hand
+// instead of going through a formatter per row, so a renderer can be kept and reused for any number of
+// statements. Not thread-safe: use one renderer per thread.
+//
+// TEXT is the console table, byte for byte what printf with DecimalFormat("#,##0.00") produced in the default
+// locale. CSV has one row per transaction under a single header row, and JSON writes one object per line.
+// Amounts in CSV and JSON are plain numbers with two decimals.
+public abstract class StatementRenderer implements Flushable {
+    private static final int FLUSH_THRESHOLD = 8 * 1024;
+
+    public enum Format {
+        TEXT("txt"), CSV("csv"), JSON("json");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        // Format named case-insensitively, or null if there is none by that name
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Writer out;
+    private final Format format;
+    protected final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+    private char[] chunk = new char[FLUSH_THRESHOLD * 2];
+
+    protected StatementRenderer(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    public static StatementRenderer create(Format format, Writer out) {
+        return switch (format) {
+            case TEXT -> new TextRenderer(out);
+            case CSV -> new CsvRenderer(out);
+            case JSON -> new JsonRenderer(out);
+        };
+    }
+
+    // Writes in the stream's own charset when it is a PrintStream such as System.out, otherwise in UTF-8
+    public static StatementRenderer create(Format format, OutputStream out) {
+        return create(format, new OutputStreamWriter(out,
+                out instanceof PrintStream printStream ? printStream.charset() : StandardCharsets.UTF_8));
+    }
+
+    // Column header, written once at the start of the output; only CSV has one
+    public void header() throws IOException {
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public abstract void render(Statement statement) throws IOException;
+
+    public abstract void render(RangeStatement statement) throws IOException;
+
+    // All transactions of an account, as echoed after a transaction is entered
+    public abstract void renderTransactions(String accountId, List<Transaction> transactions) throws IOException;
+
+    // Output already rendered in this renderer's format, e.g. by a shard worker process, written as it is
+    public void renderRendered(CharSequence rendered) throws IOException {
+        buffer.append(rendered);
+        drainIfFull();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    // Hands the buffer to the writer once it is big enough; renderers call this after each row
+    protected void drainIfFull() throws IOException {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            drain();
+        }
+    }
+
+    protected void drain() throws IOException {
+        int length = buffer.length();
+        if (length == 0) {
+            return;
+        }
+        if (chunk.length < length) {
+            chunk = new char[length];
+        }
+        buffer.getChars(0, length, chunk, 0);
+        out.write(chunk, 0, length);
+        buffer.setLength(0);
+    }
+
+    protected void appendDate(LocalDate date) {
+        appendZeroPadded(date.getYear(), 4);
+        appendZeroPadded(date.getMonthValue(), 2);
+        appendZeroPadded(date.getDayOfMonth(), 2);
+    }
+
+    protected void appendYearMonth(int year, int month) {
+        appendZeroPadded(year, 4);
+        appendZeroPadded(month, 2);
+    }
+
+    private void appendZeroPadded(int value, int width) {
+        for (int digits = String.valueOf(value).length(); digits < width; digits++) {
+            buffer.append('0');
+        }
+        buffer.append(value);
+    }
+
+    // cents as 1234.56, the same in every locale
+    protected void appendPlainAmount(long cents) {
+        if (cents < 0) {
+            buffer.append('-');
+        }
+        long magnitude = Math.abs(cents);
+        buffer.append(magnitude / 100).append('.');
+        long fraction = magnitude % 100;
+        if (fraction < 10) {
+            buffer.append('0');
+        }
+        buffer.append(fraction);
+    }
+
+    // value as a quoted JSON string
+    static void appendJsonString(StringBuilder target, String value) {
+        target.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> target.append("\\\"");
+                case '\\' -> target.append("\\\\");
+                case '\n' -> target.append("\\n");
+                case '\r' -> target.append("\\r");
+                case '\t' -> target.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        target.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        target.append(c);
+                    }
+                }
+            }
+        }
+        target.append('"');
+    }
+
+    protected static long toCents(BigDecimal amount, RoundingMode rounding) {
+        return amount.setScale(2, rounding).unscaledValue().longValueExact();
+    }
+
+    private static class TextRenderer extends StatementRenderer {
+        private static final String ROW_END = " |\n";
+
+        private final char zeroDigit;
+        private final char decimalSeparator;
+        private final char groupingSeparator;
+        private final char minusSign;
+
+        TextRenderer(Writer out) {
+            super(out, Format.TEXT);
+            // Captured once, from the same locale DecimalFormat and printf use by default
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+            zeroDigit = symbols.getZeroDigit();
+            decimalSeparator = symbols.getDecimalSeparator();
+            groupingSeparator = symbols.getGroupingSeparator();
+            minusSign = symbols.getMinusSign();
+        }
+
+        @Override
+        public void render(Statement statement) throws IOException {
+            buffer.append("\nAccount: ").append(statement.accountId()).append('\n');
+            buffer.append("| Date     | Txn Id      | Type | Amount  | Balance |\n");
+
+            long runningBalanceCents = Money.toCents(statement.openingBalance());
+            for (Transaction t : statement.transactions()) {
+                long cents = toCents(t.amount(), RoundingMode.HALF_EVEN);
+                runningBalanceCents = t.type() == 'D' ? runningBalanceCents + cents : runningBalanceCents - cents;
+                appendRow(t, cents, runningBalanceCents);
+            }
+
+            Transaction interestTransaction = statement.interestTransaction();
+            long interestCents = toCents(interestTransaction.amount(), RoundingMode.HALF_EVEN);
+            runningBalanceCents += interestCents;
+            appendRow(interestTransaction, interestCents, runningBalanceCents);
+            drainIfFull();
+        }
+
+        // Each month as in its own statement, followed by its subtotals, then the interest total of the range
+        @Override
+        public void render(RangeStatement statement) throws IOException {
+            for (Statement month : statement.months()) {
+                render(month);
+                long depositCents = 0;
+                long withdrawalCents = 0;
+                for (Transaction t : month.transactions()) {
+                    if (t.type() == 'D') {
+                        depositCents += toCents(t.amount(), RoundingMode.HALF_EVEN);
+                    } else {
+                        withdrawalCents += toCents(t.amount(), RoundingMode.HALF_EVEN);
+                    }
+                }
+                LocalDate monthEnd = month.interestTransaction().date();
+                buffer.append("Subtotal ");
+                appendYearMonth(monthEnd.getYear(), monthEnd.getMonthValue());
+                buffer.append(": deposits ");
+                appendGroupedAmount(depositCents, 0);
+                buffer.append(", withdrawals ");
+                appendGroupedAmount(withdrawalCents, 0);
+                buffer.append(", interest ");
+                appendGroupedAmount(toCents(month.interestTransaction().amount(), RoundingMode.HALF_EVEN), 0);
+                buffer.append('\n');
+            }
+            buffer.append("\nTotal interest ");
+            appendYearMonth(statement.first().getYear(), statement.first().getMonthValue());
+            buffer.append('-');
+            appendYearMonth(statement.last().getYear(), statement.last().getMonthValue());
+            buffer.append(": ");
+            appendGroupedAmount(toCents(statement.totalInterest(), RoundingMode.HALF_EVEN), 0);
+            buffer.append('\n');
+            drainIfFull();
+        }
+
+        @Override
+        public void renderTransactions(String accountId, List<Transaction> transactions) throws IOException {
+            buffer.append("\nAccount: ").append(accountId).append('\n');
+            buffer.append("| Date     | Txn Id      | Type | Amount |\n");
+            for (Transaction t : transactions) {
+                buffer.append("| ");
+                appendDate(t.date());
+                buffer.append(" | ");
+                appendLeft(t.transactionId(), 10);
+                buffer.append(" | ");
+                appendLeft(String.valueOf(t.type()), 4);
+                buffer.append(" | ");
+                // printf %6.2f: HALF_UP, no grouping
+                int start = buffer.length();
+                appendLocalizedAmount(toCents(t.amount(), RoundingMode.HALF_UP), false);
+                padLeft(start, 6);
+                buffer.append(ROW_END);
+                drainIfFull();
+            }
+        }
+
+        // printf("| %s | %-10s | %-4s | %7s | %7s |\n") with both amounts through DecimalFormat("#,##0.00")
+        private void appendRow(Transaction t, long amountCents, long balanceCents) throws IOException {
+            buffer.append("| ");
+            appendDate(t.date());
+            buffer.append(" | ");
+            appendLeft(t.transactionId(), 10);
+            buffer.append(" | ");
+            appendLeft(String.valueOf(t.type()), 4);
+            buffer.append(" | ");
+            appendGroupedAmount(amountCents, 7);
+            buffer.append(" | ");
+            appendGroupedAmount(balanceCents, 7);
+            buffer.append(ROW_END);
+            drainIfFull();
+        }
+
+        private void appendLeft(String value, int width) {
+            buffer.append(value);
+            for (int i = value.length(); i < width; i++) {
+                buffer.append(' ');
+            }
+        }
+
+        private void appendGroupedAmount(long cents, int width) {
+            int start = buffer.length();
+            appendLocalizedAmount(cents, true);
+            padLeft(start, width);
+        }
+
+        private void appendLocalizedAmount(long cents, boolean grouping) {
+            if (cents < 0) {
+                buffer.append(minusSign);
+            }
+            long magnitude = Math.abs(cents);
+            String units = Long.toString(magnitude / 100);
+            for (int i = 0; i < units.length(); i++) {
+                if (grouping && i > 0 && (units.length() - i) % 3 == 0) {
+                    buffer.append(groupingSeparator);
+                }
+                buffer.append((char) (zeroDigit + units.charAt(i) - '0'));
+            }
+            buffer.append(decimalSeparator);
+            buffer.append((char) (zeroDigit + magnitude % 100 / 10));
+            buffer.append((char) (zeroDigit + magnitude % 10));
+        }
+
+        private void padLeft(int start, int width) {
+            int length = buffer.length() - start;
+            if (length < width) {
+                buffer.insert(start, " ".repeat(width - length));
+            }
+        }
+    }
+
+    private static class CsvRenderer extends StatementRenderer {
+
+        CsvRenderer(Writer out) {
+            super(out, Format.CSV);
+        }
+
+        @Override
+        public void header() throws IOException {
+            buffer.append("account,date,txn_id,type,amount,balance\n");
+        }
+
+        @Override
+        public void render(Statement statement) throws IOException {
+            long runningBalanceCents = Money.toCents(statement.openingBalance());
+            for (Transaction t : statement.transactions()) {
+                long cents = toCents(t.amount(), RoundingMode.HALF_EVEN);
+                runningBalanceCents = t.type() == 'D' ? runningBalanceCents + cents : runningBalanceCents - cents;
+                appendRow(statement.accountId(), t, cents, runningBalanceCents);
+            }
+            long interestCents = toCents(statement.interestTransaction().amount(), RoundingMode.HALF_EVEN);
+            appendRow(statement.accountId(), statement.interestTransaction(), interestCents,
+                    runningBalanceCents + interestCents);
+        }
+
+        @Override
+        public void render(RangeStatement statement) throws IOException {
+            for (Statement month : statement.months()) {
+                render(month);
+            }
+        }
+
+        @Override
+        public void renderTransactions(String accountId, List<Transaction> transactions) throws IOException {
+            for (Transaction t : transactions) {
+                appendRow(accountId, t, toCents(t.amount(), RoundingMode.HALF_UP), null);
+            }
+        }
+
+        private void appendRow(String accountId, Transaction t, long amountCents, Long balanceCents)
+                throws IOException {
+            appendField(accountId);
+            buffer.append(',');
+            appendDate(t.date());
+            buffer.append(',');
+            appendField(t.transactionId().trim());
+            buffer.append(',').append(t.type()).append(',');
+            appendPlainAmount(amountCents);
+            buffer.append(',');
+            if (balanceCents != null) {
+                appendPlainAmount(balanceCents);
+            }
+            buffer.append('\n');
+            drainIfFull();
+        }
+
+        // Quoted only when it holds a separator, quote or line break
+        private void appendField(String value) {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                buffer.append(value);
+                return;
+            }
+            buffer.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    buffer.append('"');
+                }
+                buffer.append(c);
+            }
+            buffer.append('"');
+        }
+    }
+
+    private static class JsonRenderer extends StatementRenderer {
+
+        JsonRenderer(Writer out) {
+            super(out, Format.JSON);
+        }
+
+        @Override
+        public void render(Statement statement) throws IOException {
+            appendStatement(statement);
+            buffer.append('\n');
+            drainIfFull();
+        }
+
+        @Override
+        public void render(RangeStatement statement) throws IOException {
+            buffer.append("{\"account\":");
+            appendString(statement.accountId());
+            buffer.append(",\"from\":\"");
+            appendYearMonth(statement.first().getYear(), statement.first().getMonthValue());
+            buffer.append("\",\"to\":\"");
+            appendYearMonth(statement.last().getYear(), statement.last().getMonthValue());
+            buffer.append("\",\"statements\":[");
+            for (int i = 0; i < statement.months().size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendStatement(statement.months().get(i));
+                drainIfFull();
+            }
+            buffer.append("],\"totalInterest\":");
+            appendPlainAmount(toCents(statement.totalInterest(), RoundingMode.HALF_EVEN));
+            buffer.append("}\n");
+            drainIfFull();
+        }
+
+        @Override
+        public void renderTransactions(String accountId, List<Transaction> transactions) throws IOException {
+            buffer.append("{\"account\":");
+            appendString(accountId);
+            buffer.append(",\"transactions\":[");
+            for (int i = 0; i < transactions.size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Transaction t = transactions.get(i);
+                appendTransaction(t, toCents(t.amount(), RoundingMode.HALF_UP));
+                buffer.append('}');
+                drainIfFull();
+            }
+            buffer.append("]}\n");
+            drainIfFull();
+        }
+
+        private void appendStatement(Statement statement) throws IOException {
+            LocalDate monthEnd = statement.interestTransaction().date();
+            long runningBalanceCents = Money.toCents(statement.openingBalance());
+            buffer.append("{\"account\":");
+            appendString(statement.accountId());
+            buffer.append(",\"month\":\"");
+            appendYearMonth(monthEnd.getYear(), monthEnd.getMonthValue());
+            buffer.append("\",\"openingBalance\":");
+            appendPlainAmount(runningBalanceCents);
+            buffer.append(",\"transactions\":[");
+            List<Transaction> transactions = statement.transactions();
+            for (int i = 0; i < transactions.size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Transaction t = transactions.get(i);
+                long cents = toCents(t.amount(), RoundingMode.HALF_EVEN);
+                runningBalanceCents = t.type() == 'D' ? runningBalanceCents + cents : runningBalanceCents - cents;
+                appendTransaction(t, cents);
+                buffer.append(",\"balance\":");
+                appendPlainAmount(runningBalanceCents);
+                buffer.append('}');
+                drainIfFull();
+            }
+            long interestCents = toCents(statement.interestTransaction().amount(), RoundingMode.HALF_EVEN);
+            buffer.append("],\"interest\":");
+            appendPlainAmount(interestCents);
+            buffer.append(",\"closingBalance\":");
+            appendPlainAmount(runningBalanceCents + interestCents);
+            buffer.append('}');
+        }
+
+        // Opens the transaction object and leaves it open for the caller to add to
+        private void appendTransaction(Transaction t, long amountCents) {
+            buffer.append("{\"date\":\"");
+            appendDate(t.date());
+            buffer.append("\",\"txnId\":");
+            appendString(t.transactionId().trim());
+            buffer.append(",\"type\":\"").append(t.type()).append("\",\"amount\":");
+            appendPlainAmount(amountCents);
+        }
+
+        private void appendString(String value) {
+            appendJsonString(buffer, value);
+        }
+    }
+}
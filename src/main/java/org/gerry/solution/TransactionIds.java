@@ -0,0 +1,146 @@
+package org.gerry.solution;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Per-day transaction id sequences for every date the parsers accept (years 0000 to 9999). The last sequence
+// handed out for each epoch day lives in an AtomicIntegerArray page of 1024 days; pages are created on first use
+// with a compare-and-set, so allocating an id is a lock-free increment and never formats or boxes anything.
+//
+// An id is the pair (epoch day, sequence), packed into a long as day << 32 | sequence. It is only turned into
+// its yyyyMMdd-NN text when shown; sequences past 99 simply get more digits.
+public class TransactionIds {
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int FIRST_DAY = (int) LocalDate.of(0, 1, 1).toEpochDay();
+    private static final int LAST_DAY = (int) LocalDate.of(9999, 12, 31).toEpochDay();
+
+    private final AtomicReferenceArray<AtomicIntegerArray> pages =
+            new AtomicReferenceArray<>(((LAST_DAY - FIRST_DAY) >> PAGE_BITS) + 1);
+
+    // Next sequence for the day, starting at 1
+    public int next(int epochDay) {
+        return page(epochDay).incrementAndGet(offset(epochDay));
+    }
+
+    // Last sequence handed out for the day, 0 if none
+    public int get(int epochDay) {
+        AtomicIntegerArray page = pages.get(pageIndex(epochDay));
+        return page == null ? 0 : page.get(offset(epochDay));
+    }
+
+    // Makes sure later ids for the day come after a sequence that was already used, e.g. on replay
+    public void restore(int epochDay, int sequence) {
+        AtomicIntegerArray page = page(epochDay);
+        int offset = offset(epochDay);
+        int current = page.get(offset);
+        while (sequence > current && !page.compareAndSet(offset, current, sequence)) {
+            current = page.get(offset);
+        }
+    }
+
+    // Forgets every sequence. Not to be called while transactions are being recorded.
+    public void clear() {
+        for (int i = 0; i < pages.length(); i++) {
+            pages.set(i, null);
+        }
+    }
+
+    // The last sequence of every day that has one, as packed ids in day order
+    public long[] toArray() {
+        long[] ids = new long[64];
+        int count = 0;
+        for (int p = 0; p < pages.length(); p++) {
+            AtomicIntegerArray page = pages.get(p);
+            if (page == null) {
+                continue;
+            }
+            for (int offset = 0; offset < PAGE_SIZE; offset++) {
+                int sequence = page.get(offset);
+                if (sequence > 0) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = pack(FIRST_DAY + (p << PAGE_BITS) + offset, sequence);
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    public static long pack(int epochDay, int sequence) {
+        return (long) epochDay << 32 | (sequence & 0xFFFFFFFFL);
+    }
+
+    public static int epochDay(long id) {
+        return (int) (id >> 32);
+    }
+
+    public static int sequence(long id) {
+        return (int) id;
+    }
+
+    public static String format(long id) {
+        return format(epochDay(id), sequence(id));
+    }
+
+    // yyyyMMdd-NN, with at least two digits of sequence
+    public static String format(int epochDay, int sequence) {
+        char[] text = new char[9 + Math.max(2, digits(sequence))];
+        formatDate(epochDay, text);
+        text[8] = '-';
+        for (int i = text.length - 1; i > 8; i--) {
+            text[i] = (char) ('0' + sequence % 10);
+            sequence /= 10;
+        }
+        return new String(text);
+    }
+
+    // yyyyMMdd
+    public static String formatDate(int epochDay) {
+        char[] text = new char[8];
+        formatDate(epochDay, text);
+        return new String(text);
+    }
+
+    private static void formatDate(int epochDay, char[] text) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int value = date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+        for (int i = 7; i >= 0; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private AtomicIntegerArray page(int epochDay) {
+        int index = pageIndex(epochDay);
+        AtomicIntegerArray page = pages.get(index);
+        if (page == null) {
+            pages.compareAndSet(index, null, new AtomicIntegerArray(PAGE_SIZE));
+            page = pages.get(index);
+        }
+        return page;
+    }
+
+    private static int pageIndex(int epochDay) {
+        if (epochDay < FIRST_DAY || epochDay > LAST_DAY) {
+            throw new IllegalArgumentException("Date outside years 0000 to 9999: " + LocalDate.ofEpochDay(epochDay));
+        }
+        return (epochDay - FIRST_DAY) >> PAGE_BITS;
+    }
+
+    private static int offset(int epochDay) {
+        return (epochDay - FIRST_DAY) & (PAGE_SIZE - 1);
+    }
+}
@@ -0,0 +1,21 @@
+package org.gerry.solution;
+
+public class TransactionRejectedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final RejectReason reason;
+
+    public TransactionRejectedException(RejectReason reason) {
+        this(reason, reason.getMessage());
+    }
+
+    public TransactionRejectedException(RejectReason reason, String message) {
+        // Rejections are expected input errors, so skip the stack trace to keep bulk loads cheap
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+
+    public RejectReason getReason() {
+        return reason;
+    }
+}
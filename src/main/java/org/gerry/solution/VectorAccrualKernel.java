@@ -0,0 +1,25 @@
+package org.gerry.solution;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// The SIMD half of PortfolioAccrual's daily step. Only loaded when the jdk.incubator.vector module is present, so
+// nothing else may refer to this class without checking PortfolioAccrual.isVectorAvailable first.
+class VectorAccrualKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    // accrued[i] += balances[i] * rate over the leading whole vectors of [0, length). Returns the index where the
+    // caller's scalar tail starts.
+    static int accrueDay(long[] balances, long[] accrued, long rate, int length) {
+        LongVector rates = LongVector.broadcast(SPECIES, rate);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, balances, i)
+                    .mul(rates)
+                    .add(LongVector.fromArray(SPECIES, accrued, i))
+                    .intoArray(accrued, i);
+        }
+        return i;
+    }
+}
@@ -0,0 +1,112 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.AccountDirectory;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.LineParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountDirectoryTest {
+
+    @Test
+    public void testConcurrentInternGivesEachIdOneDenseHandle() throws Exception {
+        // Arrange
+        AccountDirectory directory = new AccountDirectory();
+        int threads = 8;
+        int ids = 20_000;
+        List<Future<int[]>> results = new ArrayList<>();
+
+        // Act - every thread interns the same ids in a different order, through lines and plain strings
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int offset = t * 7_919;
+                boolean fromLine = t % 2 == 0;
+                results.add(executor.submit(() -> {
+                    int[] handles = new int[ids];
+                    for (int i = 0; i < ids; i++) {
+                        int id = (i + offset) % ids;
+                        handles[id] = fromLine
+                                ? directory.intern("> AC" + id + " D", 2, 4 + Integer.toString(id).length())
+                                : directory.intern("AC" + id);
+                        directory.getOrCreate(handles[id]);
+                    }
+                    return handles;
+                }));
+            }
+        }
+
+        // Assert
+        int[] first = results.getFirst().get();
+        boolean[] used = new boolean[ids];
+        for (Future<int[]> result : results) {
+            assertArrayEquals(first, result.get());
+        }
+        for (int id = 0; id < ids; id++) {
+            int handle = first[id];
+            assertFalse(used[handle], "Handle " + handle + " given twice");
+            used[handle] = true;
+            assertEquals("AC" + id, directory.getId(handle));
+            assertEquals(handle, directory.find("AC" + id));
+            assertSame(directory.get(handle), directory.get("AC" + id));
+            assertEquals(handle, directory.get(handle).getHandle());
+        }
+        assertEquals(ids, directory.size());
+        assertEquals(-1, directory.find("AC" + ids));
+    }
+
+    @Test
+    public void testMapViewKeepsHandlesAcrossRemoveAndClear() {
+        // Arrange
+        AccountDirectory directory = new AccountDirectory();
+        Account first = directory.computeIfAbsent("AC001", Account::new);
+        directory.put("AC002", new Account("AC002"));
+        directory.computeIfAbsent("AC003", Account::new);
+        int handle = directory.find("AC002");
+
+        // Act
+        directory.remove("AC002");
+        List<String> afterRemove = new ArrayList<>(directory.keySet());
+        Account replacement = directory.computeIfAbsent("AC002", Account::new);
+        directory.clear();
+
+        // Assert
+        assertEquals(0, first.getHandle());
+        assertEquals(List.of("AC001", "AC003"), afterRemove);
+        assertEquals(handle, replacement.getHandle());
+        assertTrue(directory.isEmpty());
+        assertNull(directory.get("AC001"));
+        assertEquals(0, directory.find("AC001"));
+        assertNull(directory.get(42));
+        assertNull(directory.get(-1));
+    }
+
+    @Test
+    public void testLedgerLooksAccountsUpFromTheParsedLine() throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        LineParser parser = LineParser.get();
+        ledger.recordTransaction(19_000, "AC001", 'D', 100);
+
+        // Act
+        parser.tokenize("  AC001   202306");
+        int known = parser.accountHandle(0, ledger.getAccounts(), false);
+        parser.tokenize("AC002 W 10");
+        int unknown = parser.accountHandle(0, ledger.getAccounts(), false);
+        int added = parser.accountHandle(0, ledger.getAccounts(), true);
+
+        // Assert
+        assertEquals(ledger.getAccount("AC001").getHandle(), known);
+        assertEquals(-1, unknown);
+        assertEquals(1, added);
+        assertEquals("AC002", ledger.getAccounts().getId(added));
+        assertNull(ledger.getAccount("AC002"));
+    }
+}
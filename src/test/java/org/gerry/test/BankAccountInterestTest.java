@@ -1,14 +1,24 @@
 package org.gerry.test;
 
+import org.gerry.solution.Account;
 import org.gerry.solution.BankAccountInterest;
 import org.gerry.solution.BankAccountInterest.*;
+import org.gerry.solution.BulkTransactionImport;
+import org.gerry.solution.BulkTransactionImport.ImportSummary;
 import org.gerry.solution.DefineInterestRules;
 import org.gerry.solution.InputTransaction;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.MonthEndStatementRun;
 import org.gerry.solution.PrintStatement;
+import org.gerry.solution.PrintStatement.RangeStatement;
+import org.gerry.solution.PrintStatement.Statement;
+import org.gerry.solution.RejectReason;
+import org.gerry.solution.RuleTimeline;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -17,10 +27,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.StringReader;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -36,25 +50,18 @@ public class BankAccountInterestTest {
     private final PrintStream originalOut = System.out;
     private final InputStream originalIn = System.in;
 
-    @SuppressWarnings("unchecked")
-    private Map<String, List<Transaction>> getAccounts() throws Exception {
-        Field accountsField = BankAccountInterest.class.getDeclaredField("accounts");
-        accountsField.setAccessible(true);
-        return (Map<String, List<Transaction>>) accountsField.get(null);
+    private Ledger getLedger() throws Exception {
+        Field ledgerField = BankAccountInterest.class.getDeclaredField("ledger");
+        ledgerField.setAccessible(true);
+        return (Ledger) ledgerField.get(null);
     }
 
-    @SuppressWarnings("unchecked")
-    private List<InterestRule> getInterestRules() throws Exception {
-        Field rulesField = BankAccountInterest.class.getDeclaredField("interestRules");
-        rulesField.setAccessible(true);
-        return (List<InterestRule>) rulesField.get(null);
+    private Map<String, Account> getAccounts() throws Exception {
+        return getLedger().getAccounts();
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Integer> getTransactionCounts() throws Exception {
-        Field countsField = BankAccountInterest.class.getDeclaredField("transactionCountByDate");
-        countsField.setAccessible(true);
-        return (Map<String, Integer>) countsField.get(null);
+    private RuleTimeline getInterestRules() throws Exception {
+        return getLedger().getInterestRules();
     }
 
     private void setScanner(Scanner mockScanner) throws Exception {
@@ -88,10 +95,11 @@ public class BankAccountInterestTest {
     public void clearStaticData() throws Exception {
         getAccounts().clear();
         getInterestRules().clear();
-        getTransactionCounts().clear();
+        getLedger().getTransactionIds().clear();
+        getLedger().getStatementCache().clear();
 
         // Add default interest rule back
-        getInterestRules().add(new InterestRule(
+        getInterestRules().upsert(new InterestRule(
                 LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
     }
 
@@ -114,6 +122,23 @@ public class BankAccountInterestTest {
         assertTrue(output.contains("[Q] Quit"));
     }
 
+    @Test
+    public void testInvalidSnapshotIntervalIsReportedWithoutStarting(@TempDir Path tempDir) {
+        // Arrange
+        String snapshot = tempDir.resolve("ledger.snapshot").toString();
+
+        // Act
+        BankAccountInterest.main(new String[]{"--snapshot", snapshot, "--snapshot-interval-s", "5m"});
+        BankAccountInterest.main(new String[]{"--snapshot", snapshot, "--snapshot-interval-s", "0"});
+
+        // Assert
+        String output = outContent.toString();
+        assertTrue(output.contains("Invalid snapshot interval: 5m. Use a positive number of seconds."), output);
+        assertTrue(output.contains("Invalid snapshot interval: 0. Use a positive number of seconds."), output);
+        assertFalse(output.contains("Welcome to AwesomeGIC Bank!"), output);
+        assertFalse(Files.exists(tempDir.resolve("ledger.snapshot")));
+    }
+
     @Test
     public void testTransactionRecordCreation() {
         // Arrange
@@ -165,11 +190,11 @@ public class BankAccountInterestTest {
     @Test
     public void testDefaultInterestRuleExists() throws Exception {
         // Act
-        List<InterestRule> rules = getInterestRules();
+        RuleTimeline rules = getInterestRules();
 
         // Assert
         assertFalse(rules.isEmpty());
-        InterestRule defaultRule = rules.getFirst();
+        InterestRule defaultRule = rules.first();
         assertEquals(LocalDate.of(2023, 1, 1), defaultRule.effectiveDate());
         assertEquals("RULE01", defaultRule.ruleId());
         assertEquals(new BigDecimal("1.95"), defaultRule.rate());
@@ -186,11 +211,11 @@ public class BankAccountInterestTest {
              MockedStatic<DefineInterestRules> mockedInterestRules = Mockito.mockStatic(DefineInterestRules.class);
              MockedStatic<PrintStatement> mockedPrintStatement = Mockito.mockStatic(PrintStatement.class)) {
 
-            mockedInputTransaction.when(() -> InputTransaction.handleTransactionInput(any(), any(), any()))
+            mockedInputTransaction.when(() -> InputTransaction.handleTransactionInput(any(), any()))
                     .thenAnswer(invocation -> null);
             mockedInterestRules.when(() -> DefineInterestRules.handleInterestRuleInput(any(), any()))
                     .thenAnswer(invocation -> null);
-            mockedPrintStatement.when(() -> PrintStatement.handleStatementPrint(any(), any(), any()))
+            mockedPrintStatement.when(() -> PrintStatement.handleStatementPrint(any(), any()))
                     .thenAnswer(invocation -> null);
 
             // Act
@@ -202,70 +227,60 @@ public class BankAccountInterestTest {
             assertTrue(output.contains("Thank you for banking with AwesomeGIC Bank."));
 
             // Verify all methods were called
-            mockedInputTransaction.verify(() -> InputTransaction.handleTransactionInput(any(), any(), any()));
+            mockedInputTransaction.verify(() -> InputTransaction.handleTransactionInput(any(), any()));
             mockedInterestRules.verify(() -> DefineInterestRules.handleInterestRuleInput(any(), any()));
-            mockedPrintStatement.verify(() -> PrintStatement.handleStatementPrint(any(), any(), any()));
+            mockedPrintStatement.verify(() -> PrintStatement.handleStatementPrint(any(), any()));
         }
     }
 
     @Test
     public void testAddingTransaction() throws Exception {
         // Arrange
-        Map<String, List<Transaction>> accounts = getAccounts();
-        Map<String, Integer> transactionCounts = getTransactionCounts();
+        Ledger ledger = getLedger();
+        Map<String, Account> accounts = getAccounts();
 
         LocalDate date = LocalDate.of(2023, 5, 15);
         String accountId = "ACC123";
         char type = 'D';
-        BigDecimal amount = new BigDecimal("500.00");
-        String transactionId = "TRX001";
-
-        Transaction transaction = new Transaction(date, accountId, type, amount, transactionId);
 
         // Act
-        accounts.computeIfAbsent(accountId, k -> new ArrayList<>()).add(transaction);
-        transactionCounts.put(date.toString(), 1);
+        Transaction transaction = ledger.recordTransaction((int) date.toEpochDay(), accountId, type, 50_000);
 
         // Assert
         assertTrue(accounts.containsKey(accountId));
-        assertEquals(1, accounts.get(accountId).size());
-        assertEquals(transaction, accounts.get(accountId).getFirst());
-        assertTrue(transactionCounts.containsKey(date.toString()));
-        assertEquals(1, transactionCounts.get(date.toString()).intValue());
+        assertEquals(1, accounts.get(accountId).getTransactions().size());
+        assertEquals(transaction, accounts.get(accountId).getTransactions().getFirst());
+        assertEquals("20230515-01", transaction.transactionId());
+        assertEquals(1, ledger.getTransactionIds().get((int) date.toEpochDay()));
     }
 
     @Test
     public void testAddingMultipleTransactions() throws Exception {
         // Arrange
-        Map<String, List<Transaction>> accounts = getAccounts();
-        Map<String, Integer> transactionCounts = getTransactionCounts();
+        Ledger ledger = getLedger();
+        Map<String, Account> accounts = getAccounts();
 
         String accountId = "ACC123";
         LocalDate date1 = LocalDate.of(2023, 5, 15);
         LocalDate date2 = LocalDate.of(2023, 5, 16);
 
-        Transaction transaction1 = new Transaction(date1, accountId, 'D', new BigDecimal("500.00"), "TRX001");
-        Transaction transaction2 = new Transaction(date2, accountId, 'W', new BigDecimal("200.00"), "TRX002");
-
         // Act
-        accounts.computeIfAbsent(accountId, k -> new ArrayList<>()).add(transaction1);
-        accounts.get(accountId).add(transaction2);
-
-        transactionCounts.put(date1.toString(), 1);
-        transactionCounts.put(date2.toString(), 1);
+        Transaction transaction1 = ledger.recordTransaction((int) date1.toEpochDay(), accountId, 'D', 50_000);
+        Transaction transaction2 = ledger.recordTransaction((int) date2.toEpochDay(), accountId, 'W', 20_000);
 
         // Assert
-        assertEquals(2, accounts.get(accountId).size());
-        assertEquals(transaction1, accounts.get(accountId).get(0));
-        assertEquals(transaction2, accounts.get(accountId).get(1));
-        assertEquals(1, transactionCounts.get(date1.toString()).intValue());
-        assertEquals(1, transactionCounts.get(date2.toString()).intValue());
+        assertEquals(2, accounts.get(accountId).getTransactions().size());
+        assertEquals(transaction1, accounts.get(accountId).getTransactions().get(0));
+        assertEquals(transaction2, accounts.get(accountId).getTransactions().get(1));
+        assertEquals(1, ledger.getTransactionIds().get((int) date1.toEpochDay()));
+        assertEquals(1, ledger.getTransactionIds().get((int) date2.toEpochDay()));
+        assertEquals(new BigDecimal("300.00"), accounts.get(accountId).getBalance());
     }
 
     @Test
     public void testAddingInterestRule() throws Exception {
         // Arrange
-        List<InterestRule> rules = getInterestRules();
+        RuleTimeline rules = getInterestRules();
         int initialSize = rules.size();
 
         LocalDate newDate = LocalDate.of(2023, 7, 1);
@@ -275,31 +290,28 @@ public class BankAccountInterestTest {
         InterestRule newRule = new InterestRule(newDate, newRuleId, newRate);
 
         // Act
-        rules.add(newRule);
+        rules.upsert(newRule);
 
         // Assert
         assertEquals(initialSize + 1, rules.size());
-        assertTrue(rules.contains(newRule));
+        assertEquals(newRule, rules.getRule(newDate));
     }
 
     @Test
     public void testFindingApplicableInterestRate() throws Exception {
         // Arrange
-        List<InterestRule> rules = getInterestRules();
+        RuleTimeline rules = getInterestRules();
 
         // Add additional rules
-        rules.add(new InterestRule(
-                LocalDate.of(2023, 4, 1), "RULE02", new BigDecimal("2.15")));
-        rules.add(new InterestRule(
+        rules.upsert(new InterestRule(
                 LocalDate.of(2023, 7, 1), "RULE03", new BigDecimal("2.35")));
-
-        // Sort rules by date
-        rules.sort(InterestRule::compareTo);
+        rules.upsert(new InterestRule(
+                LocalDate.of(2023, 4, 1), "RULE02", new BigDecimal("2.15")));
 
         // Act - Find applicable rule for different dates
-        InterestRule ruleForMarch = findApplicableRule(rules, LocalDate.of(2023, 3, 15));
-        InterestRule ruleForMay = findApplicableRule(rules, LocalDate.of(2023, 5, 15));
-        InterestRule ruleForAugust = findApplicableRule(rules, LocalDate.of(2023, 8, 10));
+        InterestRule ruleForMarch = rules.getRuleInForce(LocalDate.of(2023, 3, 15));
+        InterestRule ruleForMay = rules.getRuleInForce(LocalDate.of(2023, 5, 15));
+        InterestRule ruleForAugust = rules.getRuleInForce(LocalDate.of(2023, 8, 10));
 
         // Assert
         assertEquals("RULE01", ruleForMarch.ruleId());
@@ -310,22 +322,44 @@ public class BankAccountInterestTest {
 
         assertEquals("RULE03", ruleForAugust.ruleId());
         assertEquals(new BigDecimal("2.35"), ruleForAugust.rate());
+        assertNull(rules.getRuleInForce(LocalDate.of(2022, 12, 31)));
+    }
+
+    @Test
+    public void testRuleTimelineUpsertAndRange() throws Exception {
+        // Arrange
+        RuleTimeline rules = getInterestRules();
+        rules.upsert(new InterestRule(LocalDate.of(2023, 6, 15), "RULE03", new BigDecimal("2.20")));
+        rules.upsert(new InterestRule(LocalDate.of(2023, 5, 20), "RULE02", new BigDecimal("1.90")));
+
+        // Act - replace the rule effective on the same date
+        InterestRule replaced = rules.upsert(
+                new InterestRule(LocalDate.of(2023, 6, 15), "RULE04", new BigDecimal("2.50")));
+
+        // Assert
+        assertEquals("RULE03", replaced.ruleId());
+        assertEquals(3, rules.size());
+        List<InterestRule> juneRules = new ArrayList<>(
+                rules.getRulesBetween(LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 30)));
+        assertEquals(1, juneRules.size());
+        assertEquals("RULE04", juneRules.getFirst().ruleId());
+        assertEquals("RULE02", rules.getRuleInForce(LocalDate.of(2023, 6, 14)).ruleId());
     }
 
     @Test
     public void testCalculateInterestForAccount() throws Exception {
         // Arrange
-        Map<String, List<Transaction>> accounts = getAccounts();
-        List<InterestRule> rules = getInterestRules();
+        Map<String, Account> accounts = getAccounts();
+        RuleTimeline rules = getInterestRules();
 
         String accountId = "ACC123";
         LocalDate date1 = LocalDate.of(2023, 5, 15);
 
         // Add a transaction
         Transaction deposit = new Transaction(date1, accountId, 'D',
-                new BigDecimal("1000.00"), "TRX001");
+                new BigDecimal("1000.00"), "20230515-01");
 
-        accounts.computeIfAbsent(accountId, k -> new ArrayList<>()).add(deposit);
+        accounts.computeIfAbsent(accountId, Account::new).addTransaction(deposit);
 
         // Calculate interest for 30 days at 1.95% annual rate
         BigDecimal dailyRate = new BigDecimal("1.95").divide(new BigDecimal("36500"), 2, RoundingMode.HALF_UP);
@@ -336,7 +370,7 @@ public class BankAccountInterestTest {
 
         // Act
         BigDecimal calculatedInterest = calculateInterestForPeriod(
-                accounts.get(accountId), rules, date1, date1.plusDays(30));
+                new ArrayList<>(accounts.get(accountId).getTransactions()), rules, date1, date1.plusDays(30));
 
         // Assert
         assertEquals(expectedInterest, calculatedInterest);
@@ -345,8 +379,8 @@ public class BankAccountInterestTest {
     @Test
     public void testCalculateBalanceWithInterest() throws Exception {
         // Arrange
-        Map<String, List<Transaction>> accounts = getAccounts();
-        List<InterestRule> rules = getInterestRules();
+        Map<String, Account> accounts = getAccounts();
+        RuleTimeline rules = getInterestRules();
 
         String accountId = "ACC123";
         LocalDate startDate = LocalDate.of(2023, 5, 1);
@@ -356,14 +390,14 @@ public class BankAccountInterestTest {
 
         // Add transactions
         Transaction deposit = new Transaction
-                (depositDate, accountId, 'D', new BigDecimal("1000.00"), "TRX001");
+                (depositDate, accountId, 'D', new BigDecimal("1000.00"), "20230505-01");
         Transaction withdrawal = new Transaction
-                (withdrawalDate, accountId, 'W', new BigDecimal("300.00"), "TRX002");
+                (withdrawalDate, accountId, 'W', new BigDecimal("300.00"), "20230520-01");
 
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(deposit);
-        transactions.add(withdrawal);
-        accounts.put(accountId, transactions);
+        Account account = new Account(accountId);
+        account.addTransaction(deposit);
+        account.addTransaction(withdrawal);
+        accounts.put(accountId, account);
 
         // Act
         BigDecimal finalBalance = calculateBalanceWithInterest(accountId, accounts, rules, startDate, endDate);
@@ -373,26 +407,127 @@ public class BankAccountInterestTest {
         assertTrue(finalBalance.compareTo(new BigDecimal("700.00")) >= 0);
     }
 
-    // Helper method to find the applicable interest rule for a given date
-    private InterestRule findApplicableRule(
-            List<InterestRule> rules, LocalDate date) {
+    @Test
+    public void testAccountBalanceCheckpoints() {
+        // Arrange
+        Account account = new Account("ACC123");
+        account.addTransaction(new Transaction(LocalDate.of(2023, 5, 5), "ACC123", 'D',
+                new BigDecimal("1000.00"), "20230505-01"));
+        account.addTransaction(new Transaction(LocalDate.of(2023, 5, 20), "ACC123", 'W',
+                new BigDecimal("300.00"), "20230520-01"));
 
-        InterestRule applicableRule = null;
+        // Act - back-dated deposit lands between the existing checkpoints
+        account.addTransaction(new Transaction(LocalDate.of(2023, 5, 10), "ACC123", 'D',
+                new BigDecimal("50.00"), "20230510-01"));
 
-        for (InterestRule rule : rules) {
-            if (!rule.effectiveDate().isAfter(date) &&
-                    (applicableRule == null || rule.effectiveDate().isAfter(applicableRule.effectiveDate()))) {
-                applicableRule = rule;
-            }
+        // Assert
+        assertEquals(new BigDecimal("750.00"), account.getBalance());
+        assertEquals(new BigDecimal("0.00"), account.getBalanceBefore(LocalDate.of(2023, 5, 5)));
+        assertEquals(new BigDecimal("1000.00"), account.getBalanceAtDate(LocalDate.of(2023, 5, 9)));
+        assertEquals(new BigDecimal("1050.00"), account.getBalanceAtDate(LocalDate.of(2023, 5, 10)));
+        assertEquals(new BigDecimal("1050.00"), account.getBalanceBefore(LocalDate.of(2023, 5, 20)));
+        assertEquals(new BigDecimal("750.00"), account.getBalanceAtDate(LocalDate.of(2023, 6, 1)));
+        assertEquals("20230510-01", account.getTransactions().get(2).transactionId());
+        List<Transaction> byDate = account.getTransactionsBetween(LocalDate.of(2023, 5, 6), LocalDate.of(2023, 5, 31));
+        assertEquals(2, byDate.size());
+        assertEquals(LocalDate.of(2023, 5, 10), byDate.get(0).date());
+        assertEquals(LocalDate.of(2023, 5, 20), byDate.get(1).date());
+    }
+
+    @Test
+    public void testMonthEndStatementRunWritesAccountsInOrder(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Map<String, Account> accounts = getAccounts();
+        for (String accountId : new String[]{"AC003", "AC001", "AC002"}) {
+            Account account = accounts.computeIfAbsent(accountId, Account::new);
+            account.addTransaction(new Transaction(LocalDate.of(2023, 5, 5), accountId, 'D',
+                    new BigDecimal("100.00"), "20230505-01"));
+            account.addTransaction(new Transaction(LocalDate.of(2023, 6, 1), accountId, 'D',
+                    new BigDecimal("150.00"), "20230601-01"));
         }
+        Path output = tempDir.resolve("statements.txt");
+        Scanner scanner = new Scanner(new ByteArrayInputStream(("202306 " + output + "\n").getBytes()));
+
+        // Act
+        MonthEndStatementRun.handleMonthEndInput(scanner, getLedger());
 
-        return applicableRule;
+        // Assert
+        String merged = Files.readString(output);
+        assertTrue(merged.indexOf("Account: AC001") < merged.indexOf("Account: AC002"));
+        assertTrue(merged.indexOf("Account: AC002") < merged.indexOf("Account: AC003"));
+        assertTrue(merged.contains("| 20230630 |             | I    |    0.40 |  250.40 |"));
+        assertTrue(outContent.toString().contains("Generated 3 statements for 202306"));
+    }
+
+    @Test
+    public void testRangeStatementMatchesMonthlyStatements() throws Exception {
+        // Arrange
+        Ledger ledger = getLedger();
+        ledger.recordTransaction((int) LocalDate.of(2023, 5, 5).toEpochDay(), "AC001", 'D', 10_000);
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 1).toEpochDay(), "AC001", 'D', 15_000);
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 26).toEpochDay(), "AC001", 'W', 2_000);
+        ledger.recordTransaction((int) LocalDate.of(2023, 8, 2).toEpochDay(), "AC001", 'W', 100);
+        Scanner scanner = new Scanner(new ByteArrayInputStream("AC001 202305-202308\nAC001 YTD 202306\n".getBytes()));
+
+        // Act
+        RangeStatement range = PrintStatement.buildRangeStatement(ledger.getAccount("AC001"),
+                ledger.getInterestRules(), YearMonth.of(2023, 5), YearMonth.of(2023, 8));
+        PrintStatement.handleStatementPrint(scanner, ledger);
+        PrintStatement.handleStatementPrint(scanner, ledger);
+
+        // Assert
+        BigDecimal total = BigDecimal.ZERO;
+        for (int month = 5; month <= 8; month++) {
+            Statement single = PrintStatement.buildStatement(ledger.getAccount("AC001"), ledger.getInterestRules(),
+                    2023, month);
+            assertEquals(single, range.months().get(month - 5));
+            total = total.add(single.interestTransaction().amount());
+        }
+        assertEquals(total, range.totalInterest());
+        String output = outContent.toString();
+        assertTrue(output.contains("| 20230630 |             | I    |    0.40 |  230.40 |"));
+        assertTrue(output.contains("Subtotal 202306: deposits 150.00, withdrawals 20.00, interest 0.40"));
+        assertTrue(output.contains("Total interest 202305-202308: " + total));
+        assertTrue(output.contains("Total interest 202301-202306: "));
+    }
+
+    @Test
+    public void testBulkImportAppliesValidationAndSummarizes() throws Exception {
+        // Arrange
+        Map<String, Account> accounts = getAccounts();
+        String feed = """
+                20230626 AC001 W 10.00
+                20230601 AC001 D 100.00
+
+                20230601 AC002 D 50.005
+                20230626 AC001 W 150.00
+                20230626 AC001 W 20.00
+                2023062 AC001 D 1.00
+                20230626 AC001 X 1.00
+                """;
+
+        // Act
+        ImportSummary summary = BulkTransactionImport.importTransactions(
+                new StringReader(feed), getLedger());
+
+        // Assert
+        assertEquals(3, summary.getAccepted());
+        assertEquals(4, summary.getRejected());
+        assertEquals(1L, summary.getRejectedByReason().get(RejectReason.FIRST_WITHDRAWAL));
+        assertEquals(1L, summary.getRejectedByReason().get(RejectReason.INSUFFICIENT_FUNDS));
+        assertEquals(1L, summary.getRejectedByReason().get(RejectReason.INVALID_DATE));
+        assertEquals(1L, summary.getRejectedByReason().get(RejectReason.INVALID_TYPE));
+        assertEquals("Line 5: Insufficient funds. Current balance: 100.00", summary.getListedRejections().get(1));
+        assertEquals(new BigDecimal("50.01"), accounts.get("AC002").getBalance());
+        assertEquals("20230601-02", accounts.get("AC002").getTransactions().getFirst().transactionId());
+        assertEquals("20230626-01", accounts.get("AC001").getTransactions().get(1).transactionId());
+        assertEquals("", outContent.toString());
     }
 
     // Helper method to calculate interest for a period
     private BigDecimal calculateInterestForPeriod(
             List<Transaction> transactions,
-            List<InterestRule> rules,
+            RuleTimeline rules,
             LocalDate startDate,
             LocalDate endDate) {
 
@@ -403,9 +538,6 @@ public class BankAccountInterestTest {
         // Sort transactions by date
         transactions.sort((t1, t2) -> t1.date().compareTo(t2.date()));
 
-        // Sort rules by effective date
-        rules.sort(InterestRule::compareTo);
-
         int transactionIndex = 0;
 
         while (!currentDate.isAfter(endDate)) {
@@ -424,7 +556,7 @@ public class BankAccountInterestTest {
             }
 
             // Find applicable interest rate
-            InterestRule applicableRule = findApplicableRule(rules, currentDate);
+            InterestRule applicableRule = rules.getRuleInForce(currentDate);
 
             if (applicableRule != null && balance.compareTo(BigDecimal.ZERO) > 0) {
                 // Calculate daily interest
@@ -444,8 +576,8 @@ public class BankAccountInterestTest {
     // Helper method to calculate final balance with interest
     private BigDecimal calculateBalanceWithInterest(
             String accountId,
-            Map<String, List<Transaction>> accounts,
-            List<InterestRule> rules,
+            Map<String, Account> accounts,
+            RuleTimeline rules,
             LocalDate startDate,
             LocalDate endDate) {
 
@@ -453,7 +585,7 @@ public class BankAccountInterestTest {
             return BigDecimal.ZERO;
         }
 
-        List<Transaction> transactions = accounts.get(accountId);
+        List<Transaction> transactions = new ArrayList<>(accounts.get(accountId).getTransactions());
         BigDecimal balance = BigDecimal.ZERO;
 
         // Calculate final balance from transactions
@@ -0,0 +1,128 @@
+package org.gerry.test;
+
+import org.gerry.solution.BatchRunner;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.Metrics;
+import org.gerry.solution.StatementRenderer.Format;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void testPrintsOnlyStatementsAndRejectedLines() {
+        // Arrange
+        String script = """
+                # June activity
+                T 20230505 AC001 D 100.00
+                T 20230601 AC001 D 150.00
+                t 20230626 AC001 W 20.00
+                T 20230626 AC001 W 100.00
+                I 20230101 RULE01 1.95
+                I 20230520 RULE02 1.90
+                I 20230615 RULE03 2.20
+
+                T 20230626 AC002 W 1.00
+                I 20230615 RULE04 100
+                X whatever
+                P AC001 202306
+                P AC009 202306
+                Q
+                P AC001 202305
+                """;
+        StringWriter output = new StringWriter();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+        // Act
+        int status = BatchRunner.run(new StringReader(script), new Ledger(), output,
+                new PrintStream(errors, true, StandardCharsets.UTF_8), Format.TEXT);
+
+        // Assert
+        assertEquals(BatchRunner.EXIT_REJECTED, status);
+        String nl = System.lineSeparator();
+        assertEquals("\nAccount: AC001\n"
+                + "| Date     | Txn Id      | Type | Amount  | Balance |\n"
+                + "| 20230601 | 20230601-01 | D    |  150.00 |  250.00 |\n"
+                + "| 20230626 | 20230626-01 | W    |   20.00 |  230.00 |\n"
+                + "| 20230626 | 20230626-02 | W    |  100.00 |  130.00 |\n"
+                + "| 20230630 |             | I    |    0.39 |  130.39 |\n", output.toString());
+        assertEquals("Line 10: First transaction for an account cannot be a withdrawal." + nl
+                + "Line 11: Interest rate must be greater than 0 and less than 100." + nl
+                + "Line 12: Invalid option. Use T, I, P, M or Q." + nl
+                + "Line 14: Account not found." + nl, errors.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCleanRunExitsWithZeroAndWritesJson() {
+        // Arrange
+        String script = "T 20230601 AC001 D 100\nP AC001 202306\n";
+        StringWriter output = new StringWriter();
+
+        // Act
+        int status = BatchRunner.run(new StringReader(script), new Ledger(), output, System.err, Format.JSON);
+
+        // Assert
+        assertEquals(BatchRunner.EXIT_OK, status);
+        assertTrue(output.toString().startsWith("{\"account\":\"AC001\",\"month\":\"202306\""), output.toString());
+    }
+
+    @Test
+    public void testRulesInABatchAreDefinedWithoutRecomputingInterest() {
+        // Arrange - no statement is asked for, so no interest has to be worked out
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            script.append("T 202306").append(String.format("%02d", 1 + i % 28)).append(" AC").append(i % 100)
+                    .append(" D 10.00\n");
+        }
+        for (int day = 1; day <= 20; day++) {
+            script.append(String.format("I 202306%02d RULE%02d %d.50\n", day, day, 1 + day % 3));
+        }
+        Ledger ledger = new Ledger();
+        long months = Metrics.get().getInterestMonthsEvaluated();
+
+        // Act
+        int status = BatchRunner.run(new StringReader(script.toString()), ledger, Writer.nullWriter(), System.err,
+                Format.TEXT);
+
+        // Assert
+        assertEquals(BatchRunner.EXIT_OK, status);
+        assertEquals(20, ledger.getInterestRules().size());
+        assertEquals(0, Metrics.get().getInterestMonthsEvaluated() - months);
+    }
+
+    @Test
+    public void testTransactionThroughput() {
+        // Arrange
+        int commands = 300_000;
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMdd");
+        String[] dates = new String[365];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = LocalDate.of(2023, 1, 1).plusDays(i).format(format);
+        }
+        StringBuilder script = new StringBuilder(commands * 28);
+        for (int i = 0; i < commands; i++) {
+            script.append("T ").append(dates[i % 365]).append(" AC").append(i % 1_000).append(" D ")
+                    .append(1 + i % 500).append(".25\n");
+        }
+        Ledger ledger = new Ledger();
+
+        // Act
+        int status = BatchRunner.run(new StringReader(script.toString()), ledger, Writer.nullWriter(), System.err,
+                Format.TEXT);
+
+        // Assert
+        assertEquals(BatchRunner.EXIT_OK, status);
+        assertEquals(1_000, ledger.getAccounts().size());
+        assertEquals(commands, ledger.getAccounts().values().stream().mapToInt(a -> a.getTransactionCount()).sum());
+    }
+}
@@ -0,0 +1,131 @@
+package org.gerry.test;
+
+import org.gerry.solution.GroupCommitLog;
+import org.gerry.solution.GroupCommitLog.Metrics;
+import org.gerry.solution.GroupCommitMetrics;
+import org.gerry.solution.Journal;
+import org.gerry.solution.Ledger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GroupCommitLogTest {
+
+    private static final int JUNE_1 = (int) LocalDate.of(2023, 6, 1).toEpochDay();
+
+    @Test
+    public void testConcurrentWritersShareForces(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path path = tempDir.resolve("ledger.journal");
+        Ledger ledger = new Ledger();
+        ledger.openJournal(path, 8, Duration.ofMillis(5));
+        int threads = 8;
+        int perThread = 250;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Act
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String accountId = "AC" + t;
+            writers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        ledger.recordTransaction(JUNE_1 + i % 30, accountId, 'D', 100);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        Metrics metrics = ledger.getCommitLog().getMetrics();
+        ledger.closeJournal();
+
+        // Assert
+        assertNull(failure.get(), () -> String.valueOf(failure.get()));
+        assertTrue(metrics.recordCount() > 0);
+        assertTrue(metrics.groupCount() < metrics.recordCount(), metrics.toString());
+        assertTrue(metrics.largestBatch() > 1, metrics.toString());
+
+        Ledger recovered = new Ledger();
+        assertEquals(threads * perThread, recovered.openJournal(path));
+        recovered.closeJournal();
+    }
+
+    @Test
+    public void testBatchSizeOneForcesEachRecord(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        ledger.openJournal(tempDir.resolve("ledger.journal"), 1, Duration.ZERO);
+        GroupCommitMetrics processWide = org.gerry.solution.Metrics.GROUP_COMMIT;
+        long groups = processWide.getGroupCount();
+        long records = processWide.getRecordCount();
+        long waits = processWide.getLatency().getCount();
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            ledger.recordTransaction(JUNE_1, "AC001", 'D', 100);
+        }
+        Metrics metrics = ledger.getCommitLog().getMetrics();
+        ledger.closeJournal();
+
+        // Assert
+        assertEquals(20, metrics.recordCount());
+        assertEquals(20, metrics.groupCount());
+        assertEquals(1, metrics.largestBatch());
+        // Other tests commit too, so only the increments of the process-wide figures are checked
+        assertEquals(20, processWide.getGroupCount() - groups);
+        assertEquals(20, processWide.getRecordCount() - records);
+        assertEquals(20, processWide.getLatency().getCount() - waits);
+        assertTrue(org.gerry.solution.Metrics.get().getJsonReport().contains(",\"groupCommit\":{\"forces\":"));
+        assertTrue(org.gerry.solution.Metrics.get().getTextReport().contains("Group commit: "));
+    }
+
+    @Test
+    public void testPartialBatchIsForcedAfterMaxWait(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        ledger.openJournal(tempDir.resolve("ledger.journal"), 1_000, Duration.ofMillis(10));
+
+        // Act
+        ledger.recordTransaction(JUNE_1, "AC001", 'D', 100);
+        Metrics metrics = ledger.getCommitLog().getMetrics();
+        ledger.closeJournal();
+
+        // Assert
+        assertEquals(1, metrics.groupCount());
+        assertTrue(metrics.maxLatencyMicros() >= 9_000, metrics.toString());
+    }
+
+    @Test
+    public void testFailedForceReleasesWaitingWriters() {
+        // Arrange - a journal whose force fails with something other than an I/O error
+        Journal journal = Mockito.mock(Journal.class);
+        Mockito.when(journal.size()).thenReturn(8L, 100L);
+        IllegalStateException broken = new IllegalStateException("mapping is gone");
+        Mockito.doThrow(broken).when(journal).force(ArgumentMatchers.anyLong());
+        GroupCommitLog log = new GroupCommitLog(journal, 1, Duration.ZERO);
+
+        // Act
+        IllegalStateException failure = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IllegalStateException.class, () -> log.awaitDurable(100)));
+        IllegalStateException later = assertThrows(IllegalStateException.class, () -> log.awaitDurable(100));
+        log.close();
+
+        // Assert
+        assertSame(broken, failure);
+        assertSame(broken, later);
+    }
+}
@@ -0,0 +1,126 @@
+package org.gerry.test;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.HttpApiServer;
+import org.gerry.solution.Ledger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpApiServerTest {
+
+    private Ledger ledger;
+    private HttpApiServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        ledger = new Ledger();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        server = HttpApiServer.start(ledger, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testTransactionsRulesAndStatements() throws Exception {
+        // Act
+        HttpResponse<String> deposit = send("POST", "/transactions", "20230601 AC001 D 150");
+        HttpResponse<String> withdrawal = send("POST", "/transactions", "20230626 AC002 W 20");
+        HttpResponse<String> batch = send("POST", "/transactions/batch",
+                "20230505 AC001 D 100.00\n20230626 AC001 W 20.00\n\n20230626 AC001 X 1\n");
+        HttpResponse<String> rule = send("POST", "/rules", "20230615 RULE03 2.20");
+        HttpResponse<String> earlyYear = send("POST", "/transactions", "09990105 AC003 D 1");
+        HttpResponse<String> rules = send("GET", "/rules", null);
+        HttpResponse<String> statement = send("GET", "/statements/AC001?month=202306", null);
+        HttpResponse<String> range = send("GET", "/statements/AC001?from=202305&to=202306", null);
+        HttpResponse<String> unknown = send("GET", "/statements/AC009?month=202306", null);
+        HttpResponse<String> wrongMethod = send("GET", "/transactions", null);
+
+        // Assert
+        assertEquals(201, deposit.statusCode());
+        assertEquals("{\"transactionId\":\"20230601-01\",\"date\":\"20230601\",\"account\":\"AC001\",\"type\":\"D\","
+                + "\"amount\":150.00}\n", deposit.body());
+        assertTrue(earlyYear.body().contains("\"date\":\"09990105\""), earlyYear.body());
+        assertEquals(422, withdrawal.statusCode());
+        assertTrue(withdrawal.body().contains("\"reason\":\"FIRST_WITHDRAWAL\""), withdrawal.body());
+        assertEquals(200, batch.statusCode());
+        assertTrue(batch.body().startsWith("{\"accepted\":2,\"rejected\":1,"), batch.body());
+        assertTrue(batch.body().contains("{\"line\":4,\"reason\":\"INVALID_TYPE\""), batch.body());
+        assertEquals(201, rule.statusCode());
+        assertTrue(rule.body().contains("\"recomputed\":1"), rule.body());
+        assertTrue(rules.body().contains("\"ruleId\":\"RULE03\",\"rate\":2.20"), rules.body());
+        assertEquals(200, statement.statusCode());
+        assertTrue(statement.body().startsWith("{\"account\":\"AC001\",\"month\":\"202306\",\"openingBalance\":100.00"),
+                statement.body());
+        assertTrue(range.body().contains("\"from\":\"202305\",\"to\":\"202306\""), range.body());
+        assertEquals(404, unknown.statusCode());
+        assertEquals(405, wrongMethod.statusCode());
+    }
+
+    @Test
+    public void testThousandsOfConcurrentRequests() throws Exception {
+        // Arrange
+        int clients = 2_000;
+        int requestsPerClient = 2;
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // Act
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                String accountId = "AC" + c;
+                results.add(callers.submit(() -> {
+                    int created = 0;
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        if (send("POST", "/transactions", "202306" + (10 + i) + " " + accountId + " D 10")
+                                .statusCode() == 201) {
+                            created++;
+                        }
+                    }
+                    assertEquals(200, send("GET", "/statements/" + accountId + "?month=202306", null).statusCode());
+                    return created;
+                }));
+            }
+        }
+
+        // Assert
+        int created = 0;
+        for (Future<Integer> result : results) {
+            created += result.get();
+        }
+        assertEquals(clients * requestsPerClient, created);
+        assertEquals(clients, ledger.getAccounts().size());
+        assertEquals(clients, ledger.getTransactionCountByDate().get("20230610"));
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://"
+                + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path))
+                .timeout(Duration.ofSeconds(30));
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
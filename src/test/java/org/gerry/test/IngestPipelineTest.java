@@ -0,0 +1,135 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.BulkTransactionImport;
+import org.gerry.solution.BulkTransactionImport.ImportSummary;
+import org.gerry.solution.IngestPipeline;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.Metrics;
+import org.gerry.solution.RejectReason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngestPipelineTest {
+
+    @Test
+    public void testPipelineMatchesSequentialImport() throws Exception {
+        // Arrange - withdrawals often exceed the balance or come before an account's first deposit
+        Random random = new Random(42);
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            int day = 1 + random.nextInt(28);
+            String account = "AC" + random.nextInt(300);
+            int kind = random.nextInt(100);
+            if (kind < 2) {
+                feed.append("202306").append(day).append(' ').append(account).append(" D\n");
+            } else if (kind < 3) {
+                feed.append('\n');
+            } else {
+                feed.append(String.format("202306%02d %s %s %d.%02d\n", day, account, kind < 50 ? "D" : "W",
+                        random.nextInt(200), random.nextInt(100)));
+            }
+        }
+        Ledger sequential = new Ledger();
+        Ledger pipelined = new Ledger();
+
+        // Act - a small ring keeps the reader waiting on the collector
+        ImportSummary expected = BulkTransactionImport.importTransactions(new StringReader(feed.toString()),
+                sequential);
+        ImportSummary actual = new IngestPipeline(pipelined, 4, 3, 64).run(new StringReader(feed.toString()));
+
+        // Assert
+        assertEquals(expected.getAccepted(), actual.getAccepted());
+        assertEquals(expected.getRejected(), actual.getRejected());
+        assertEquals(expected.getRejectedByReason(), actual.getRejectedByReason());
+        assertEquals(expected.getListedRejections(), actual.getListedRejections());
+        assertEquals(sequential.getAccounts().keySet(), pipelined.getAccounts().keySet());
+
+        Set<String> ids = new HashSet<>();
+        for (Account account : sequential.getAccounts().values()) {
+            Account other = pipelined.getAccount(account.getAccountId());
+            assertEquals(account.getBalance(), other.getBalance());
+            List<Transaction> transactions = account.getTransactions();
+            List<Transaction> otherTransactions = other.getTransactions();
+            assertEquals(transactions.size(), otherTransactions.size());
+            for (int i = 0; i < transactions.size(); i++) {
+                assertEquals(transactions.get(i).date(), otherTransactions.get(i).date());
+                assertEquals(transactions.get(i).type(), otherTransactions.get(i).type());
+                assertEquals(transactions.get(i).amount(), otherTransactions.get(i).amount());
+                assertTrue(ids.add(otherTransactions.get(i).transactionId()),
+                        "Id " + otherTransactions.get(i).transactionId() + " given twice");
+            }
+        }
+        assertEquals(sequential.getTransactionCountByDate(), pipelined.getTransactionCountByDate());
+    }
+
+    @Test
+    public void testPipelineRejectsAWithdrawalBeforeTheFirstDeposit() throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        String feed = """
+                20230626 AC001 W 10.00
+                20230601 AC001 D 100.00
+
+                20230601 AC002 D 50.005
+                20230626 AC001 W 150.00
+                20230626 AC001 W 20.00
+                2023062 AC001 D 1.00
+                20230626 AC001 X 1.00
+                """;
+        long transactions = Metrics.TRANSACTION.getCount();
+
+        // Act
+        ImportSummary summary = new IngestPipeline(ledger, 2, 2, 2).run(new StringReader(feed));
+
+        // Assert
+        assertEquals(3, summary.getAccepted());
+        assertEquals(4, summary.getRejected());
+        assertEquals(1L, summary.getRejectedByReason().get(RejectReason.FIRST_WITHDRAWAL));
+        assertEquals(1L, summary.getRejectedByReason().get(RejectReason.INSUFFICIENT_FUNDS));
+        assertEquals(List.of("Line 1: " + RejectReason.FIRST_WITHDRAWAL.getMessage(),
+                "Line 5: Insufficient funds. Current balance: 100.00"), summary.getListedRejections().subList(0, 2));
+        assertEquals(new BigDecimal("80.00"), ledger.getAccount("AC001").getBalance());
+        assertEquals(new BigDecimal("50.01"), ledger.getAccount("AC002").getBalance());
+        // Each line counts once, whether it was accepted or rejected by a parser or by an apply shard
+        assertEquals(7, Metrics.TRANSACTION.getCount() - transactions);
+    }
+
+    @Test
+    public void testAcceptedTransactionsAreJournaled(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path path = tempDir.resolve("ledger.journal");
+        Ledger ledger = new Ledger();
+        ledger.openJournal(path, 64, Duration.ofMillis(1));
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            feed.append("202306").append(10 + i % 20).append(" AC").append(i % 7).append(i % 3 == 2 ? " W" : " D")
+                    .append(" 1.00\n");
+        }
+
+        // Act
+        ImportSummary summary = new IngestPipeline(ledger, 3, 2, 128).run(new StringReader(feed.toString()));
+        ledger.closeJournal();
+        Ledger recovered = new Ledger();
+        long replayed = recovered.openJournal(path);
+
+        // Assert
+        assertEquals(summary.getAccepted(), replayed);
+        for (Account account : ledger.getAccounts().values()) {
+            assertEquals(account.getBalance(), recovered.getAccount(account.getAccountId()).getBalance());
+        }
+        recovered.closeJournal();
+    }
+}
@@ -0,0 +1,202 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.InterestEngine;
+import org.gerry.solution.RuleTimeline;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterestEngineTest {
+
+    @Test
+    public void testSampleStatementInterest() {
+        // Arrange
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(new Transaction(LocalDate.of(2023, 5, 5), "AC001", 'D', new BigDecimal("100.00"), "20230505-01"));
+        transactions.add(new Transaction(LocalDate.of(2023, 6, 1), "AC001", 'D', new BigDecimal("150.00"), "20230601-01"));
+        transactions.add(new Transaction(LocalDate.of(2023, 6, 26), "AC001", 'W', new BigDecimal("20.00"), "20230626-01"));
+        transactions.add(new Transaction(LocalDate.of(2023, 6, 26), "AC001", 'W', new BigDecimal("100.00"), "20230626-02"));
+
+        List<InterestRule> rules = new ArrayList<>();
+        rules.add(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        rules.add(new InterestRule(LocalDate.of(2023, 5, 20), "RULE02", new BigDecimal("1.90")));
+        rules.add(new InterestRule(LocalDate.of(2023, 6, 15), "RULE03", new BigDecimal("2.20")));
+
+        // Act
+        BigDecimal interest = InterestEngine.calculateInterest(transactions, timelineOf(rules), 2023, 6);
+
+        // Assert
+        assertEquals(new BigDecimal("0.39"), interest);
+        assertEquals(legacyCalculateInterest(transactions, rules, 2023, 6), interest);
+    }
+
+    @Test
+    public void testNoApplicableRuleYieldsZeroInterest() {
+        // Arrange
+        List<Transaction> transactions = List.of(
+                new Transaction(LocalDate.of(2022, 3, 2), "AC001", 'D', new BigDecimal("500.00"), "20220302-01"));
+        RuleTimeline rules = timelineOf(List.of(
+                new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95"))));
+
+        // Act & Assert
+        assertEquals(new BigDecimal("0.00"), InterestEngine.calculateInterest(transactions, rules, 2022, 3));
+    }
+
+    @Test
+    public void testMatchesLegacyAlgorithmOnRandomHistories() {
+        Random random = new Random(20230601L);
+
+        for (int run = 0; run < 500; run++) {
+            // Arrange - random back-dated history and unsorted rules around the statement month
+            int year = 2023;
+            int month = 1 + random.nextInt(12);
+            LocalDate origin = LocalDate.of(year, month, 1).minusDays(60);
+
+            List<Transaction> transactions = new ArrayList<>();
+            Account account = new Account("AC001");
+            int txnCount = random.nextInt(40);
+            for (int i = 0; i < txnCount; i++) {
+                LocalDate date = origin.plusDays(random.nextInt(120));
+                char type = random.nextInt(3) == 0 ? 'W' : 'D';
+                BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(500_000), 2);
+                transactions.add(new Transaction(date, "AC001", type, amount,
+                        String.format("%s-%02d", date.format(DateTimeFormatter.ofPattern("yyyyMMdd")), i + 1)));
+                account.addTransaction(transactions.getLast());
+            }
+
+            List<InterestRule> rules = new ArrayList<>();
+            int ruleCount = random.nextInt(6);
+            for (int i = 0; i < ruleCount; i++) {
+                LocalDate date = origin.plusDays(random.nextInt(120));
+                if (rules.stream().anyMatch(rule -> rule.effectiveDate().equals(date))) {
+                    continue;
+                }
+                BigDecimal rate = BigDecimal.valueOf(1 + random.nextInt(999_999), 2 + random.nextInt(5));
+                rules.add(new InterestRule(date, "RULE0" + i, rate));
+            }
+
+            // Act
+            BigDecimal expected = legacyCalculateInterest(transactions, rules, year, month);
+            RuleTimeline timeline = timelineOf(rules);
+            BigDecimal actual = InterestEngine.calculateInterest(transactions, timeline, year, month);
+            BigDecimal actualFromAccount = InterestEngine.calculateInterest(account, timeline, year, month);
+
+            // Assert
+            assertEquals(expected, actual, "Mismatch on run " + run);
+            assertEquals(expected, actualFromAccount, "Mismatch on account index, run " + run);
+        }
+    }
+
+    @Test
+    public void testMonthlySweepMatchesSingleMonths() {
+        Random random = new Random(16);
+
+        for (int run = 0; run < 200; run++) {
+            // Arrange - random history and rules over two years, including month ends
+            LocalDate origin = LocalDate.of(2023, 1, 1);
+            Account account = new Account("AC001");
+            for (int i = random.nextInt(60); i > 0; i--) {
+                account.append((int) origin.plusDays(random.nextInt(730)).toEpochDay(),
+                        random.nextInt(3) == 0 ? 'W' : 'D', 1 + random.nextInt(500_000), i);
+            }
+            RuleTimeline timeline = new RuleTimeline();
+            for (int i = random.nextInt(8); i > 0; i--) {
+                LocalDate date = origin.plusDays(random.nextInt(730) - 30);
+                timeline.upsert(new InterestRule(date, "RULE0" + i, BigDecimal.valueOf(1 + random.nextInt(9_999), 2)));
+            }
+            YearMonth first = YearMonth.of(2023, 1 + random.nextInt(12));
+            int months = 1 + random.nextInt(18);
+
+            // Act
+            BigDecimal[] interest = InterestEngine.calculateMonthlyInterest(account, timeline, first, months);
+
+            // Assert
+            for (int m = 0; m < months; m++) {
+                YearMonth month = first.plusMonths(m);
+                assertEquals(InterestEngine.calculateInterest(account, timeline, month.getYear(),
+                        month.getMonthValue()), interest[m], "Mismatch on run " + run + ", " + month);
+            }
+        }
+    }
+
+    private RuleTimeline timelineOf(List<InterestRule> rules) {
+        RuleTimeline timeline = new RuleTimeline();
+        rules.forEach(timeline::upsert);
+        return timeline;
+    }
+
+    // Reference copy of the original per-period rescan algorithm from PrintStatement
+    private BigDecimal legacyCalculateInterest(List<Transaction> transactions,
+                                               List<InterestRule> interestRules,
+                                               int year, int month) {
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
+
+        Set<LocalDate> significantDates = new TreeSet<>();
+        significantDates.add(startDate);
+        significantDates.add(endDate);
+
+        for (Transaction t : transactions) {
+            if (!t.date().isBefore(startDate) && !t.date().isAfter(endDate)) {
+                significantDates.add(t.date());
+            }
+        }
+
+        for (InterestRule rule : interestRules) {
+            if (!rule.effectiveDate().isAfter(endDate) && !rule.effectiveDate().isBefore(startDate)) {
+                significantDates.add(rule.effectiveDate());
+            }
+        }
+
+        List<LocalDate> datesList = new ArrayList<>(significantDates);
+        BigDecimal totalInterest = BigDecimal.ZERO;
+
+        for (int i = 0; i < datesList.size() - 1; i++) {
+            LocalDate periodStart = datesList.get(i);
+            LocalDate periodEnd = datesList.get(i + 1).minusDays(1);
+
+            if (i == datesList.size() - 2) {
+                periodEnd = endDate;
+            }
+
+            BigDecimal eodBalance = BigDecimal.ZERO;
+            for (Transaction t : transactions) {
+                if (!t.date().isAfter(periodStart)) {
+                    eodBalance = t.type() == 'D' ? eodBalance.add(t.amount()) : eodBalance.subtract(t.amount());
+                }
+            }
+            InterestRule applicableRule = interestRules.stream()
+                    .filter(rule -> !rule.effectiveDate().isAfter(periodStart))
+                    .max(Comparator.comparing(InterestRule::effectiveDate))
+                    .orElse(null);
+
+            if (applicableRule != null) {
+                int days = (int) ChronoUnit.DAYS.between(periodStart, periodEnd) + 1;
+                BigDecimal periodInterest = eodBalance
+                        .multiply(applicableRule.rate())
+                        .multiply(new BigDecimal(days))
+                        .divide(new BigDecimal("100"), 4, RoundingMode.HALF_UP);
+                totalInterest = totalInterest.add(periodInterest);
+            }
+        }
+
+        totalInterest = totalInterest.divide(new BigDecimal("365"), 4, RoundingMode.HALF_UP);
+        return totalInterest.setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,139 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.Ledger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+
+    private static final int JUNE_1 = (int) LocalDate.of(2023, 6, 1).toEpochDay();
+
+    @Test
+    public void testReplayRebuildsLedger(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path path = tempDir.resolve("ledger.journal");
+        Ledger original = new Ledger();
+        original.openJournal(path);
+        original.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        original.recordTransaction(JUNE_1, "AC001", 'D', 10_000);
+        original.recordTransaction(JUNE_1, "Konto-Ü", 'D', 5_050);
+        original.recordTransaction(JUNE_1 + 5, "AC001", 'W', 2_525);
+        original.recordTransaction(JUNE_1 - 3, "AC001", 'D', 1);
+        original.defineRule(new InterestRule(LocalDate.of(2023, 6, 15), "RULE02", new BigDecimal("2.123456789")));
+        original.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE03", new BigDecimal("1.5")));
+        original.closeJournal();
+
+        // Act
+        Ledger recovered = new Ledger();
+        long records = recovered.openJournal(path);
+
+        // Assert
+        assertEquals(7, records);
+        assertEquals(0, recovered.getJournal().getTruncatedBytes());
+        assertSameAccounts(original, recovered);
+        assertEquals(original.getTransactionCountByDate(), recovered.getTransactionCountByDate());
+        assertEquals(List.copyOf(original.getInterestRules().getRulesBetween(LocalDate.MIN, LocalDate.MAX)),
+                List.copyOf(recovered.getInterestRules().getRulesBetween(LocalDate.MIN, LocalDate.MAX)));
+        assertEquals("RULE03", recovered.getInterestRules().getRule(LocalDate.of(2023, 1, 1)).ruleId());
+
+        // Ids carry on from the journaled sequences
+        Transaction next = recovered.recordTransaction(JUNE_1, "AC002", 'D', 100);
+        assertEquals("20230601-03", next.transactionId());
+        recovered.closeJournal();
+    }
+
+    @Test
+    public void testTornTailIsTruncated(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path path = tempDir.resolve("ledger.journal");
+        Ledger original = new Ledger();
+        original.openJournal(path);
+        original.recordTransaction(JUNE_1, "AC001", 'D', 10_000);
+        original.recordTransaction(JUNE_1 + 1, "AC001", 'W', 1_000);
+        original.closeJournal();
+        long intactSize = Files.size(path);
+
+        // A record whose length promises more bytes than were written before the crash
+        ByteBuffer torn = ByteBuffer.allocate(10).putInt(26).put((byte) 1).putInt(JUNE_1 + 2).put((byte) 'D');
+        Files.write(path, torn.array(), StandardOpenOption.APPEND);
+
+        // Act
+        Ledger recovered = new Ledger();
+        long records = recovered.openJournal(path);
+        long truncatedBytes = recovered.getJournal().getTruncatedBytes();
+        recovered.recordTransaction(JUNE_1 + 2, "AC001", 'D', 500);
+        recovered.closeJournal();
+
+        // Assert
+        assertEquals(2, records);
+        assertEquals(10, truncatedBytes);
+        assertEquals(new BigDecimal("95.00"), reopen(path).getAccount("AC001").getBalance());
+        assertTrue(Files.size(path) > intactSize);
+    }
+
+    @Test
+    public void testCorruptRecordEndsJournal(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path path = tempDir.resolve("ledger.journal");
+        Ledger original = new Ledger();
+        original.openJournal(path);
+        original.recordTransaction(JUNE_1, "AC001", 'D', 10_000);
+        original.recordTransaction(JUNE_1 + 1, "AC001", 'W', 1_000);
+        original.closeJournal();
+
+        // Flip a bit in the body of the last record
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 12] ^= 1;
+        Files.write(path, bytes);
+
+        // Act
+        Ledger recovered = new Ledger();
+        long records = recovered.openJournal(path);
+
+        // Assert
+        assertEquals(1, records);
+        assertTrue(recovered.getJournal().getTruncatedBytes() > 0);
+        assertEquals(new BigDecimal("100.00"), recovered.getAccount("AC001").getBalance());
+        recovered.closeJournal();
+        assertTrue(Files.size(path) < bytes.length);
+        assertEquals(1, reopen(path).getAccount("AC001").getTransactionCount());
+    }
+
+    @Test
+    public void testRejectsForeignFile(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("notes.txt");
+        Files.writeString(path, "not a journal");
+
+        assertThrows(IOException.class, () -> new Ledger().openJournal(path));
+    }
+
+    private static Ledger reopen(Path path) throws IOException {
+        Ledger ledger = new Ledger();
+        ledger.openJournal(path);
+        ledger.closeJournal();
+        return ledger;
+    }
+
+    private static void assertSameAccounts(Ledger expected, Ledger actual) {
+        assertEquals(expected.getAccounts().keySet(), actual.getAccounts().keySet());
+        for (Account account : expected.getAccounts().values()) {
+            Account restored = actual.getAccount(account.getAccountId());
+            assertEquals(account.getBalance(), restored.getBalance());
+            assertEquals(account.getTransactions(), restored.getTransactions());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.PrintStatement;
+import org.gerry.solution.PrintStatement.Statement;
+import org.gerry.solution.TransactionRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerConcurrencyTest {
+
+    private static final int OPERATIONS = 200_000;
+    private static final int ACCOUNTS = 64;
+    private static final int START_DAY = (int) LocalDate.of(2023, 6, 1).toEpochDay();
+
+    @Test
+    public void testConcurrentWritersKeepIdsUniqueAndBalancesConsistent() throws Exception {
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            // Arrange
+            Ledger ledger = new Ledger();
+            ledger.getInterestRules().upsert(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01",
+                    new BigDecimal("1.95")));
+            LongAdder netCents = new LongAdder();
+            LongAdder accepted = new LongAdder();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            AtomicBoolean writing = new AtomicBoolean(true);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                int operations = OPERATIONS / threads;
+                writers.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < operations; i++) {
+                            String accountId = "AC" + random.nextInt(ACCOUNTS);
+                            char type = random.nextInt(10) < 7 ? 'D' : 'W';
+                            long cents = 1 + random.nextInt(10_000);
+                            try {
+                                ledger.recordTransaction(START_DAY + random.nextInt(30), accountId, type, cents);
+                                netCents.add(type == 'D' ? cents : -cents);
+                                accepted.increment();
+                            } catch (TransactionRejectedException e) {
+                                // First withdrawals and overdrafts are expected under random input
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }));
+            }
+
+            // Statements built while the writers run must each be internally consistent
+            Thread reader = Thread.ofPlatform().start(() -> {
+                Random random = new Random(99);
+                try {
+                    while (writing.get()) {
+                        Account account = ledger.getAccount("AC" + random.nextInt(ACCOUNTS));
+                        if (account != null) {
+                            assertStatementConsistent(ledger, account);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+
+            // Act
+            start.countDown();
+            done.await();
+            writing.set(false);
+            reader.join();
+            for (Thread writer : writers) {
+                writer.join();
+            }
+
+            // Assert
+            assertNull(failure.get(), () -> String.valueOf(failure.get()));
+            assertIdsUniqueAndContiguous(ledger, accepted.sum());
+
+            long totalCents = 0;
+            for (Account account : ledger.getAccounts().values()) {
+                long replayed = 0;
+                for (Transaction t : account.getTransactions()) {
+                    replayed += t.type() == 'D' ? t.amount().movePointRight(2).longValueExact()
+                            : -t.amount().movePointRight(2).longValueExact();
+                    assertTrue(replayed >= 0, account.getAccountId());
+                }
+                assertEquals(replayed, account.getBalanceCents(), account.getAccountId());
+                totalCents += replayed;
+            }
+            assertEquals(netCents.sum(), totalCents);
+        }
+    }
+
+    private static void assertStatementConsistent(Ledger ledger, Account account) {
+        account.withReadLock(() -> {
+            Statement statement = PrintStatement.buildStatement(account, ledger.getInterestRules(), 2023, 6);
+            long balance = statement.openingBalance().movePointRight(2).longValueExact();
+            for (Transaction t : statement.transactions()) {
+                long cents = t.amount().movePointRight(2).longValueExact();
+                balance += t.type() == 'D' ? cents : -cents;
+            }
+            assertEquals(account.getBalanceCentsAtDay(START_DAY + 29), balance, account.getAccountId());
+            return null;
+        });
+    }
+
+    private static void assertIdsUniqueAndContiguous(Ledger ledger, long accepted) {
+        Set<String> ids = new HashSet<>();
+        Map<String, Integer> highestByDate = new HashMap<>();
+        for (Account account : ledger.getAccounts().values()) {
+            for (Transaction t : account.getTransactions()) {
+                assertTrue(ids.add(t.transactionId()), "Duplicate id " + t.transactionId());
+                String date = t.transactionId().substring(0, 8);
+                int sequence = Integer.parseInt(t.transactionId().substring(9));
+                highestByDate.merge(date, sequence, Math::max);
+            }
+        }
+        assertEquals(accepted, ids.size());
+
+        // Every allocated sequence was used exactly once, so each date holds 1..n with nothing lost
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : highestByDate.entrySet()) {
+            assertEquals(ledger.getTransactionCountByDate().get(entry.getKey()), entry.getValue(), entry.getKey());
+            total += entry.getValue();
+        }
+        assertEquals(ids.size(), total);
+    }
+}
@@ -0,0 +1,111 @@
+package org.gerry.test;
+
+import org.gerry.solution.LineParser;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineParserTest {
+
+    private final LineParser parser = new LineParser();
+
+    @Test
+    public void testTokenizeMatchesTrimAndSplit() {
+        String[] inputs = {"20230626 AC001 W 100.00", "  20230626\tAC001  W 100.00 \r", "AC001", "a b c d e f g h i j",
+                "\u0001 x\u0001y z \u0002"};
+
+        for (String input : inputs) {
+            // Arrange
+            String[] expected = input.trim().split("\\s+");
+
+            // Act
+            int count = parser.tokenize(input);
+
+            // Assert
+            assertEquals(expected.length, count, input);
+            for (int i = 0; i < Math.min(count, 8); i++) {
+                assertEquals(expected[i], parser.tokenString(i), input);
+            }
+        }
+    }
+
+    @Test
+    public void testEpochDayMatchesDateTimeFormatter() {
+        String[] inputs = {"20230626", "20230229", "20240229", "20240230", "20230431", "20230132", "00000101",
+                "00010101", "99991231", "20231301", "20230001", "20230100", "2023010", "120230101", "+2023010",
+                "2023-6-1", "abcdefgh"};
+        for (String input : inputs) {
+            assertDateParity(input);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            assertDateParity(String.format("%04d%02d%02d", random.nextInt(10_000), random.nextInt(14),
+                    random.nextInt(33)));
+        }
+    }
+
+    @Test
+    public void testCentsMatchBigDecimalHalfUp() {
+        String[] inputs = {"100.00", "100", "0.005", "0.004", "-0.005", "+12.345", "1.", ".5", "1e2", "1.5E-1",
+                "abc", ".", "-", "1.2.3", "12,00", "0", "-10.00", "123456789012345678901234", "00012.999"};
+        for (String input : inputs) {
+            assertAmountParity(input);
+        }
+
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            String input = random.nextInt(1_000_000) + "." + random.nextInt(100_000);
+            assertAmountParity(random.nextBoolean() ? input : "-" + input);
+        }
+    }
+
+    @Test
+    public void testDecimalKeepsWrittenScale() {
+        parser.tokenize("1.95 +2.500 abc");
+
+        assertEquals(new BigDecimal("1.95"), parser.parseDecimal(0));
+        assertEquals(new BigDecimal("+2.500"), parser.parseDecimal(1));
+        assertNull(parser.parseDecimal(2));
+    }
+
+    @Test
+    public void testYearMonth() {
+        parser.tokenize("202306 202313 2023 abcd06");
+
+        assertEquals(202306, parser.parseYearMonth(0));
+        assertEquals(LineParser.INVALID_YEAR_MONTH, parser.parseYearMonth(1));
+        assertEquals(LineParser.INVALID_YEAR_MONTH, parser.parseYearMonth(2));
+        assertEquals(LineParser.INVALID_YEAR_MONTH, parser.parseYearMonth(3));
+    }
+
+    private void assertDateParity(String input) {
+        long expected;
+        try {
+            expected = LocalDate.parse(input, DateTimeFormatter.ofPattern("yyyyMMdd")).toEpochDay();
+        } catch (DateTimeParseException e) {
+            expected = LineParser.INVALID;
+        }
+        parser.tokenize(input);
+        assertEquals(expected, parser.parseEpochDay(0), input);
+    }
+
+    private void assertAmountParity(String input) {
+        long expected;
+        try {
+            BigDecimal amount = new BigDecimal(input).setScale(2, RoundingMode.HALF_UP);
+            expected = amount.unscaledValue().bitLength() < 64 ? amount.unscaledValue().longValue() : LineParser.INVALID;
+        } catch (NumberFormatException e) {
+            expected = LineParser.INVALID;
+        }
+        parser.tokenize(input);
+        assertEquals(expected, parser.parseCents(0), input);
+    }
+}
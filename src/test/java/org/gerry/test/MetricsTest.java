@@ -0,0 +1,162 @@
+package org.gerry.test;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.CommandMetrics;
+import org.gerry.solution.DefineInterestRules;
+import org.gerry.solution.InputTransaction;
+import org.gerry.solution.LatencyHistogram;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.LineParser;
+import org.gerry.solution.Metrics;
+import org.gerry.solution.MetricsReporter;
+import org.gerry.solution.PrintStatement;
+import org.gerry.solution.RejectReason;
+import org.gerry.solution.StatementRenderer;
+import org.gerry.solution.TransactionRejectedException;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testCommandsAreCountedWithRejectionReasons() throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        LineParser parser = LineParser.get();
+        StatementRenderer renderer = StatementRenderer.create(StatementRenderer.Format.TEXT, Writer.nullWriter());
+        long transactions = Metrics.TRANSACTION.getCount();
+        long insufficientFunds = Metrics.TRANSACTION.getRejected(RejectReason.INSUFFICIENT_FUNDS);
+        long invalidDates = Metrics.TRANSACTION.getRejected(RejectReason.INVALID_DATE);
+        long rules = Metrics.INTEREST_RULE.getCount();
+        long rateRejections = Metrics.INTEREST_RULE.getRejected(RejectReason.RATE_OUT_OF_RANGE);
+        long statements = Metrics.STATEMENT.getCount();
+        long accountRejections = Metrics.STATEMENT.getRejected(RejectReason.ACCOUNT_NOT_FOUND);
+        long months = Metrics.get().getInterestMonthsEvaluated();
+        long periods = Metrics.get().getInterestPeriodsEvaluated();
+
+        // Act
+        InputTransaction.recordTransaction(parser, "20230601 AC001 D 150", ledger);
+        InputTransaction.recordTransaction(parser, "20230610 AC001 W 50", ledger);
+        assertThrows(TransactionRejectedException.class,
+                () -> InputTransaction.recordTransaction(parser, "20230611 AC001 W 500", ledger));
+        assertThrows(TransactionRejectedException.class,
+                () -> InputTransaction.recordTransaction(parser, "20231301 AC001 D 5", ledger));
+        DefineInterestRules.defineRule(parser, "20230615 RULE02 2.20", ledger);
+        assertThrows(TransactionRejectedException.class,
+                () -> DefineInterestRules.defineRule(parser, "20230615 RULE03 100", ledger));
+        PrintStatement.renderStatement(parser, "AC001 202301-202306", ledger, renderer);
+        assertThrows(TransactionRejectedException.class,
+                () -> PrintStatement.renderStatement(parser, "AC009 202306", ledger, renderer));
+
+        // Assert - metrics are process-wide, so only the increments are checked
+        assertEquals(4, Metrics.TRANSACTION.getCount() - transactions);
+        assertEquals(1, Metrics.TRANSACTION.getRejected(RejectReason.INSUFFICIENT_FUNDS) - insufficientFunds);
+        assertEquals(1, Metrics.TRANSACTION.getRejected(RejectReason.INVALID_DATE) - invalidDates);
+        assertEquals(2, Metrics.INTEREST_RULE.getCount() - rules);
+        assertEquals(1, Metrics.INTEREST_RULE.getRejected(RejectReason.RATE_OUT_OF_RANGE) - rateRejections);
+        assertEquals(2, Metrics.STATEMENT.getCount() - statements);
+        assertEquals(1, Metrics.STATEMENT.getRejected(RejectReason.ACCOUNT_NOT_FOUND) - accountRejections);
+        // One period in each of January to May, and three in June: to the withdrawal, to RULE02 and to the month end
+        assertTrue(Metrics.get().getInterestMonthsEvaluated() - months >= 6);
+        assertTrue(Metrics.get().getInterestPeriodsEvaluated() - periods >= 8);
+        assertTrue(Metrics.TRANSACTION.getMaxMicros() > 0);
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucketPrecision() {
+        // Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Act - 1 us to 1000 us, once each
+        for (long micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        // Assert
+        assertEquals(1_000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_500, histogram.getMeanNanos(), 0.001);
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 * 0.035);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 * 0.035);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertTrue(histogram.getValueAtPercentile(50) >= 500_000);
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testRecordingDoesNotAllocate() {
+        // Arrange
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CommandMetrics metrics = Metrics.STATEMENT;
+        for (int i = 0; i < 200_000; i++) {
+            metrics.record(System.nanoTime() - i);
+            metrics.rejected(RejectReason.INVALID_FORMAT);
+        }
+
+        // Act
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) {
+            metrics.record(System.nanoTime() - i * 37L);
+            metrics.rejected(RejectReason.INVALID_FORMAT);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Assert - a few bytes of slack for the measurement itself
+        assertTrue(allocated < 1_024, allocated + " bytes allocated");
+    }
+
+    @Test
+    public void testMetricsAreReadableOverJmx() throws Exception {
+        // Arrange
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Metrics.TRANSACTION.rejected(RejectReason.INVALID_AMOUNT);
+
+        // Act
+        Metrics.registerMBeans();
+        Metrics.registerMBeans();
+        Object rejected = server.getAttribute(
+                new ObjectName("org.gerry.solution:type=CommandMetrics,name=transaction"), "Rejected");
+        Object report = server.getAttribute(new ObjectName("org.gerry.solution:type=Metrics"), "JsonReport");
+        Object forces = server.getAttribute(new ObjectName("org.gerry.solution:type=GroupCommitMetrics"),
+                "GroupCount");
+
+        // Assert
+        assertTrue((Long) rejected >= 1);
+        assertEquals(Metrics.GROUP_COMMIT.getGroupCount(), (Long) forces, 1_000);
+        assertTrue(((String) report).contains("\"transaction\":{\"count\":"), (String) report);
+        assertTrue(((String) report).contains("\"INVALID_AMOUNT\":"), (String) report);
+        assertTrue(Metrics.get().getTextReport().contains("| transaction   |"));
+    }
+
+    @Test
+    public void testReporterPrintsPeriodicallyAndOnClose() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(out, true, StandardCharsets.UTF_8);
+
+        // Act
+        MetricsReporter reporter = new MetricsReporter(stream, false, Duration.ofMillis(20));
+        Thread.sleep(200);
+        reporter.close();
+        String text = out.toString(StandardCharsets.UTF_8);
+
+        // Assert - at least one scheduled report and the final one, with '\n' line ends only
+        assertTrue(text.split("Metrics at ", -1).length - 1 >= 2, text);
+        assertFalse(text.contains("\r"));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsReporter(stream, true, Duration.ZERO));
+    }
+}
@@ -0,0 +1,122 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.InterestEngine;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.PortfolioAccrual;
+import org.gerry.solution.PortfolioAccrual.Accrual;
+import org.gerry.solution.PortfolioAccrual.Kernel;
+import org.gerry.solution.RuleTimeline;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PortfolioAccrualTest {
+
+    @Test
+    public void testEveryKernelReconcilesToTheMonthlyInterest() throws Exception {
+        // Arrange - 301 accounts so the vector loop leaves a scalar tail, with changes on month ends
+        Random random = new Random(7);
+        Ledger ledger = new Ledger();
+        LocalDate first = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < 301; i++) {
+            String accountId = "AC" + i;
+            ledger.recordTransaction((int) first.toEpochDay(), accountId, 'D', 1 + random.nextInt(10_000_000));
+            for (int t = 0; t < 20; t++) {
+                int day = (int) first.toEpochDay() + random.nextInt(180);
+                long cents = 1 + random.nextInt(500_000);
+                char type = random.nextBoolean() ? 'D' : 'W';
+                if (type == 'D' || ledger.getAccount(accountId).getBalanceCents() >= cents) {
+                    ledger.recordTransaction(day, accountId, type, cents);
+                }
+            }
+            ledger.recordTransaction((int) LocalDate.of(2023, 3, 31).toEpochDay(), accountId, 'D', 12_345);
+        }
+        RuleTimeline rules = ledger.getInterestRules();
+        rules.upsert(new InterestRule(LocalDate.of(2023, 1, 10), "RULE01", new BigDecimal("1.95")));
+        rules.upsert(new InterestRule(LocalDate.of(2023, 2, 15), "RULE02", new BigDecimal("2.125")));
+        rules.upsert(new InterestRule(LocalDate.of(2023, 3, 31), "RULE03", new BigDecimal("3.5")));
+        rules.upsert(new InterestRule(LocalDate.of(2023, 5, 2), "RULE04", new BigDecimal("0.0075")));
+
+        for (int m = 0; m < 6; m++) {
+            YearMonth month = YearMonth.of(2023, 1 + m);
+
+            // Act
+            Accrual vector = PortfolioAccrual.accrueMonthToDate(ledger.getAccounts(), rules, month.atEndOfMonth(),
+                    Kernel.VECTOR);
+            Accrual scalar = PortfolioAccrual.accrueMonthToDate(ledger.getAccounts(), rules, month.atEndOfMonth(),
+                    Kernel.SCALAR);
+            Accrual perAccount = PortfolioAccrual.accrueMonthToDate(ledger.getAccounts(), rules,
+                    month.atEndOfMonth(), Kernel.PER_ACCOUNT);
+
+            // Assert
+            assertEquals(PortfolioAccrual.isVectorAvailable() ? Kernel.VECTOR : Kernel.SCALAR, vector.kernel());
+            assertEquals(Kernel.PER_ACCOUNT, perAccount.kernel());
+            for (int i = 0; i < vector.accountIds().length; i++) {
+                Account account = ledger.getAccount(vector.accountIds()[i]);
+                BigDecimal expected = InterestEngine.calculateInterest(account, rules, month.getYear(),
+                        month.getMonthValue());
+                assertEquals(expected, vector.getInterest(i), account.getAccountId() + " " + month);
+                assertEquals(expected, scalar.getInterest(i), account.getAccountId() + " " + month);
+                assertEquals(expected, perAccount.getInterest(i), account.getAccountId() + " " + month);
+            }
+        }
+    }
+
+    @Test
+    public void testAccrualSoFarThisMonthSplitsAtRuleChanges() throws Exception {
+        // Arrange - the example account from the README
+        Ledger ledger = new Ledger();
+        ledger.recordTransaction((int) LocalDate.of(2023, 5, 5).toEpochDay(), "AC001", 'D', 10_000);
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 1).toEpochDay(), "AC001", 'D', 15_000);
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 26).toEpochDay(), "AC001", 'W', 2_000);
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 26).toEpochDay(), "AC001", 'W', 10_000);
+        RuleTimeline rules = ledger.getInterestRules();
+        rules.upsert(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        rules.upsert(new InterestRule(LocalDate.of(2023, 5, 20), "RULE02", new BigDecimal("1.90")));
+        rules.upsert(new InterestRule(LocalDate.of(2023, 6, 15), "RULE03", new BigDecimal("2.20")));
+
+        // Act
+        Accrual beforeChange = PortfolioAccrual.accrueMonthToDate(ledger.getAccounts(), rules,
+                LocalDate.of(2023, 6, 14));
+        Accrual afterChange = PortfolioAccrual.accrueMonthToDate(ledger.getAccounts(), rules,
+                LocalDate.of(2023, 6, 25));
+        Accrual monthEnd = PortfolioAccrual.accrueMonthToDate(ledger.getAccounts(), rules,
+                LocalDate.of(2023, 6, 30));
+
+        // Assert - 250.00 at 1.90% for 14 days, then 11 days at 2.20%
+        assertEquals(new BigDecimal("0.18"), beforeChange.getInterest(0));
+        assertEquals(new BigDecimal("0.35"), afterChange.getInterest(0));
+        assertEquals(new BigDecimal("0.39"), monthEnd.getInterest(0));
+        assertEquals(new BigDecimal("0.39"), monthEnd.getTotalInterest());
+    }
+
+    @Test
+    public void testRatesTooPreciseForLongsFallBackToPerAccount() throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 1).toEpochDay(), "AC001", 'D', 123_456_789);
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 9).toEpochDay(), "AC002", 'D', 42);
+        RuleTimeline rules = ledger.getInterestRules();
+        rules.upsert(new InterestRule(LocalDate.of(2023, 6, 1), "RULE01", new BigDecimal("1.5")));
+        rules.upsert(new InterestRule(LocalDate.of(2023, 6, 12), "RULE02",
+                new BigDecimal("2.1234567890123456789")));
+
+        // Act
+        Accrual accrual = PortfolioAccrual.accrueMonthToDate(ledger.getAccounts(), rules,
+                LocalDate.of(2023, 6, 30), Kernel.VECTOR);
+
+        // Assert
+        assertEquals(Kernel.PER_ACCOUNT, accrual.kernel());
+        assertEquals(InterestEngine.calculateInterest(ledger.getAccount("AC001"), rules, 2023, 6),
+                accrual.getInterest(0));
+        assertEquals(InterestEngine.calculateInterest(ledger.getAccount("AC002"), rules, 2023, 6),
+                accrual.getInterest(1));
+    }
+}
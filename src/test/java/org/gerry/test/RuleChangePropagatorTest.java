@@ -0,0 +1,140 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.InterestEngine;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.RuleChangePropagator;
+import org.gerry.solution.RuleChangePropagator.InterestChange;
+import org.gerry.solution.RuleChangePropagator.Report;
+import org.gerry.solution.RuleTimeline;
+import org.gerry.solution.TransactionRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleChangePropagatorTest {
+
+    private static final int JAN_1 = (int) LocalDate.of(2023, 1, 1).toEpochDay();
+
+    @Test
+    public void testOnlyMonthsWithABalanceUntilTheNextRuleAreRecomputed() throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 6, 1), "RULE02", new BigDecimal("2.00")));
+        ledger.recordTransaction(JAN_1, "AC001", 'D', 100_000);
+        ledger.recordTransaction(JAN_1, "AC002", 'D', 50_000);
+        ledger.recordTransaction(JAN_1 + 40, "AC002", 'W', 50_000);
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 1).toEpochDay(), "AC003", 'D', 70_000);
+
+        // Act
+        Report report = RuleChangePropagator.defineRule(ledger,
+                new InterestRule(LocalDate.of(2023, 3, 15), "RULE03", new BigDecimal("3.00")));
+
+        // Assert
+        assertEquals(LocalDate.of(2023, 3, 15), report.from());
+        assertEquals(LocalDate.of(2023, 5, 31), report.to());
+        assertEquals(3, report.recomputed());
+        assertEquals(3, report.changes().size());
+        InterestChange march = report.changes().get(0);
+        assertEquals("AC001", march.accountId());
+        assertEquals(YearMonth.of(2023, 3), march.month());
+        assertEquals(InterestEngine.calculateInterest(ledger.getAccount("AC001"), ledger.getInterestRules(), 2023, 3),
+                march.newInterest());
+        assertTrue(march.newInterest().compareTo(march.oldInterest()) > 0);
+    }
+
+    @Test
+    public void testReplacingARuleWithTheSameRateChangesNothing() throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 3, 1), "RULE02", new BigDecimal("2.00")));
+        ledger.recordTransaction(JAN_1, "AC001", 'D', 100_000);
+
+        // Act
+        Report report = RuleChangePropagator.defineRule(ledger,
+                new InterestRule(LocalDate.of(2023, 3, 1), "RULE03", new BigDecimal("2.000")));
+
+        // Assert
+        assertNull(report.from());
+        assertEquals(0, report.recomputed());
+        assertTrue(report.changes().isEmpty());
+        assertEquals("RULE02", report.replaced().ruleId());
+        assertEquals("RULE03", ledger.getInterestRules().getRule(LocalDate.of(2023, 3, 1)).ruleId());
+    }
+
+    @Test
+    public void testSameRateRuleMidMonthIsStillRecomputed() throws Exception {
+        // Arrange - splitting June at the 15th rounds each half on its own, which costs this balance a cent
+        Ledger ledger = new Ledger();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.955")));
+        ledger.recordTransaction((int) LocalDate.of(2023, 6, 1).toEpochDay(), "AC001", 'D', 66_898);
+
+        // Act
+        Report report = RuleChangePropagator.defineRule(ledger,
+                new InterestRule(LocalDate.of(2023, 6, 15), "RULE02", new BigDecimal("1.955")));
+
+        // Assert
+        assertEquals(LocalDate.of(2023, 6, 15), report.from());
+        assertEquals(1, report.recomputed());
+        assertEquals(1, report.changes().size());
+        InterestChange june = report.changes().get(0);
+        assertEquals(YearMonth.of(2023, 6), june.month());
+        assertEquals(new BigDecimal("1.08"), june.oldInterest());
+        assertEquals(new BigDecimal("1.07"), june.newInterest());
+        assertEquals(InterestEngine.calculateInterest(ledger.getAccount("AC001"), ledger.getInterestRules(), 2023, 6),
+                june.newInterest());
+    }
+
+    @Test
+    public void testReportMatchesFullRecomputation() throws Exception {
+        // Arrange
+        Random random = new Random(15);
+        Ledger ledger = new Ledger();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 9, 20), "RULE02", new BigDecimal("2.10")));
+        for (int i = 0; i < 2_000; i++) {
+            try {
+                ledger.recordTransaction(JAN_1 + random.nextInt(365), "AC" + random.nextInt(40),
+                        random.nextInt(3) == 0 ? 'W' : 'D', 1 + random.nextInt(100_000));
+            } catch (TransactionRejectedException e) {
+                // Expected for random withdrawals
+            }
+        }
+
+        for (InterestRule rule : new InterestRule[] {
+                new InterestRule(LocalDate.of(2023, 4, 10), "RULE03", new BigDecimal("2.75")),
+                new InterestRule(LocalDate.of(2023, 9, 20), "RULE02", new BigDecimal("1.10")),
+                new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("3.00"))}) {
+            RuleTimeline before = ledger.getInterestRules().copy();
+
+            // Act
+            Report report = RuleChangePropagator.defineRule(ledger, rule);
+
+            // Assert
+            Set<InterestChange> expected = new HashSet<>();
+            for (Account account : ledger.getAccounts().values()) {
+                for (int month = 1; month <= 12; month++) {
+                    BigDecimal oldInterest = InterestEngine.calculateInterest(account, before, 2023, month);
+                    BigDecimal newInterest = InterestEngine.calculateInterest(account, ledger.getInterestRules(),
+                            2023, month);
+                    if (oldInterest.compareTo(newInterest) != 0) {
+                        expected.add(new InterestChange(account.getAccountId(), YearMonth.of(2023, month),
+                                oldInterest, newInterest));
+                    }
+                }
+            }
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, new HashSet<>(report.changes()), rule.ruleId());
+        }
+    }
+}
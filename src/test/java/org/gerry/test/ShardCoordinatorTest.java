@@ -0,0 +1,173 @@
+package org.gerry.test;
+
+import org.gerry.solution.BatchRunner;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.ShardCoordinator;
+import org.gerry.solution.StatementRenderer;
+import org.gerry.solution.StatementRenderer.Format;
+import org.gerry.solution.TransactionRejectedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardCoordinatorTest {
+
+    @Test
+    public void testShardedBatchMatchesSingleLedger() throws Exception {
+        // Arrange - many accounts sharing dates, some rejected lines, statements and a month-end run
+        Random random = new Random(11);
+        StringBuilder script = new StringBuilder("I 20230101 RULE01 1.95\n");
+        for (int i = 0; i < 600; i++) {
+            String account = "AC" + random.nextInt(40);
+            int day = 1 + random.nextInt(28);
+            String type = random.nextInt(3) == 0 ? "W" : "D";
+            script.append(String.format("T 202306%02d %s %s %d.%02d\n", day, account, type, random.nextInt(300),
+                    random.nextInt(100)));
+            if (i == 300) {
+                script.append("I 20230615 RULE02 2.20\nI 20230620 RULE03 100\n");
+            }
+        }
+        script.append("T 2023061 AC001 D 1.00\nT 20230601\nP AC1 202306\nP AC2 202301-202306\nP AC99 202306\n")
+                .append("M 202306\nM 2023\nX\n");
+
+        for (Format format : Format.values()) {
+            StringWriter expectedOutput = new StringWriter();
+            ByteArrayOutputStream expectedErrors = new ByteArrayOutputStream();
+            StringWriter actualOutput = new StringWriter();
+            ByteArrayOutputStream actualErrors = new ByteArrayOutputStream();
+
+            // Act
+            int expected = BatchRunner.run(new StringReader(script.toString()), new Ledger(), expectedOutput,
+                    new PrintStream(expectedErrors, true, StandardCharsets.UTF_8), format);
+            int actual;
+            try (ShardCoordinator coordinator = ShardCoordinator.launch(3, format, null, 64, Duration.ofMillis(2))) {
+                actual = BatchRunner.run(new StringReader(script.toString()), coordinator, actualOutput,
+                        new PrintStream(actualErrors, true, StandardCharsets.UTF_8), format);
+            }
+
+            // Assert
+            assertEquals(expected, actual);
+            assertEquals(expectedErrors.toString(StandardCharsets.UTF_8),
+                    actualErrors.toString(StandardCharsets.UTF_8));
+            assertEquals(expectedOutput.toString(), actualOutput.toString());
+        }
+    }
+
+    @Test
+    public void testPipelinedTransactionsReportRejectionsInLineOrder() throws Exception {
+        // Arrange - more lines than a shard keeps in flight, with malformed lines and a bad command among them
+        Random random = new Random(5);
+        String[] malformed = {"T 20230631 AC1 D 1.00", "T 20230601 AC1 X 1.00", "T 20230601 AC1 D 1.0.0",
+                "T 20230601 AC1 W 0", "T 20230601 AC1", "X 20230601"};
+        StringBuilder script = new StringBuilder("I 20230101 RULE01 1.95\n");
+        for (int i = 0; i < 5000; i++) {
+            if (i % 97 == 0) {
+                script.append(malformed[i / 97 % malformed.length]).append('\n');
+            }
+            script.append(String.format("T 202306%02d AC%d %s %d.00\n", 1 + random.nextInt(3), random.nextInt(50),
+                    random.nextInt(5) < 2 ? "W" : "D", 1 + random.nextInt(200)));
+        }
+        script.append("M 202306\n");
+
+        StringWriter expectedOutput = new StringWriter();
+        ByteArrayOutputStream expectedErrors = new ByteArrayOutputStream();
+        StringWriter actualOutput = new StringWriter();
+        ByteArrayOutputStream actualErrors = new ByteArrayOutputStream();
+
+        // Act
+        int expected = BatchRunner.run(new StringReader(script.toString()), new Ledger(), expectedOutput,
+                new PrintStream(expectedErrors, true, StandardCharsets.UTF_8), Format.CSV);
+        int actual;
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(2, Format.CSV, null, 64, Duration.ofMillis(2))) {
+            actual = BatchRunner.run(new StringReader(script.toString()), coordinator, actualOutput,
+                    new PrintStream(actualErrors, true, StandardCharsets.UTF_8), Format.CSV);
+        }
+
+        // Assert
+        assertEquals(BatchRunner.EXIT_REJECTED, expected);
+        assertEquals(expected, actual);
+        assertEquals(expectedErrors.toString(StandardCharsets.UTF_8), actualErrors.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedOutput.toString(), actualOutput.toString());
+    }
+
+    @Test
+    public void testAccountsAreSpreadAndStayOnTheirShard() throws Exception {
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(2, Format.TEXT, null, 64, Duration.ofMillis(2))) {
+            // Arrange
+            Set<Integer> used = new HashSet<>();
+            for (int i = 0; i < 20; i++) {
+                used.add(coordinator.shardOf("AC" + i));
+            }
+            coordinator.recordTransaction(" 20230601 AC001 D 100.00");
+
+            // Act
+            TransactionRejectedException rejected = assertThrows(TransactionRejectedException.class,
+                    () -> coordinator.recordTransaction(" 20230602 AC001 W 100.01"));
+            StringWriter statement = new StringWriter();
+            StatementRenderer renderer = StatementRenderer.create(Format.TEXT, statement);
+            coordinator.renderStatement(" AC001 202306", renderer);
+            renderer.flush();
+
+            // Assert
+            assertEquals(Set.of(0, 1), used);
+            assertEquals(coordinator.shardOf("AC001"), coordinator.shardOf("AC001"));
+            assertEquals("Insufficient funds. Current balance: 100.00", rejected.getMessage());
+            assertTrue(statement.toString().contains("| 20230601 | 20230601-01 | D    |  100.00 |  100.00 |\n"),
+                    statement.toString());
+        }
+    }
+
+    @Test
+    public void testShardJournalsCarryIdsAcrossRestarts(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path journal = tempDir.resolve("ledger.journal");
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(2, Format.CSV, journal, 64,
+                Duration.ofMillis(2))) {
+            for (int i = 0; i < 6; i++) {
+                coordinator.recordTransaction(" 20230601 AC" + i + " D 10.00");
+            }
+        }
+
+        // Act
+        StringWriter output = new StringWriter();
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(2, Format.CSV, journal, 64,
+                Duration.ofMillis(2))) {
+            coordinator.recordTransaction(" 20230601 AC0 D 5.00");
+            StatementRenderer renderer = StatementRenderer.create(Format.CSV, output);
+            coordinator.renderStatement(" AC0 202306", renderer);
+            renderer.flush();
+        }
+
+        // Assert
+        assertEquals("AC0,20230601,20230601-01,D,10.00,10.00\n"
+                + "AC0,20230601,20230601-07,D,5.00,15.00\n"
+                + "AC0,20230630,,I,0.02,15.02\n", output.toString());
+    }
+
+    @Test
+    public void testInvalidSyncOptionsAreRejectedBeforeStarting(@TempDir Path tempDir) {
+        // Arrange
+        Path journal = tempDir.resolve("ledger.journal");
+
+        // Act & Assert
+        IllegalArgumentException batch = assertThrows(IllegalArgumentException.class,
+                () -> ShardCoordinator.launch(2, Format.CSV, journal, 0, Duration.ofMillis(2)));
+        IllegalArgumentException wait = assertThrows(IllegalArgumentException.class,
+                () -> ShardCoordinator.launch(2, Format.CSV, journal, 64, Duration.ofMillis(-1)));
+        assertEquals("Batch size must be at least 1", batch.getMessage());
+        assertEquals("Maximum wait must not be negative", wait.getMessage());
+        assertFalse(journal.resolveSibling("ledger.journal.shard0").toFile().exists());
+    }
+}
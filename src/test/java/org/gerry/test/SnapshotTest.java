@@ -0,0 +1,183 @@
+package org.gerry.test;
+
+import org.gerry.solution.Account;
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.PrintStatement;
+import org.gerry.solution.Snapshot;
+import org.gerry.solution.TransactionRejectedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTest {
+
+    private static final int JUNE_1 = (int) LocalDate.of(2023, 6, 1).toEpochDay();
+
+    @Test
+    public void testSnapshotPlusJournalTailRestoresLedger(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path journal = tempDir.resolve("ledger.journal");
+        Path snapshot = tempDir.resolve("ledger.snapshot");
+        Ledger original = new Ledger();
+        original.openJournal(journal);
+        original.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        original.recordTransaction(JUNE_1 + 4, "AC001", 'D', 10_000);
+        original.recordTransaction(JUNE_1, "AC001", 'D', 2_000);
+        original.recordTransaction(JUNE_1 + 9, "AC002", 'D', 500);
+        Snapshot.Summary written = original.writeSnapshot(snapshot);
+        original.recordTransaction(JUNE_1 + 9, "AC001", 'W', 1_234);
+        original.defineRule(new InterestRule(LocalDate.of(2023, 6, 15), "RULE02", new BigDecimal("2.20")));
+        original.closeJournal();
+
+        // Act
+        Ledger restored = new Ledger();
+        Snapshot.Summary loaded = restored.loadSnapshot(snapshot);
+        long tailRecords = restored.openJournal(journal);
+
+        // Assert
+        assertEquals(written, loaded);
+        assertEquals(2, loaded.accounts());
+        assertEquals(3, loaded.transactions());
+        assertEquals(2, tailRecords);
+        assertSameLedger(original, restored);
+        assertEquals("20230610-02", restored.getAccount("AC001").getTransactions().get(2).transactionId());
+        assertEquals(PrintStatement.buildStatement(original.getAccount("AC001"), original.getInterestRules(), 2023, 6),
+                PrintStatement.buildStatement(restored.getAccount("AC001"), restored.getInterestRules(), 2023, 6));
+        restored.closeJournal();
+    }
+
+    @Test
+    public void testJournalShorterThanSnapshotPositionIsReported(@TempDir Path tempDir) throws Exception {
+        // Arrange - a journal that lost records the snapshot already covers
+        Path journal = tempDir.resolve("ledger.journal");
+        Path snapshot = tempDir.resolve("ledger.snapshot");
+        Ledger original = new Ledger();
+        original.openJournal(journal);
+        original.recordTransaction(JUNE_1, "AC001", 'D', 10_000);
+        original.recordTransaction(JUNE_1 + 1, "AC002", 'D', 2_000);
+        Snapshot.Summary written = original.writeSnapshot(snapshot);
+        original.closeJournal();
+        Path endsAtSnapshot = tempDir.resolve("ends-at-snapshot.journal");
+        Path endsBeforeSnapshot = tempDir.resolve("ends-before-snapshot.journal");
+        truncatedCopy(journal, endsAtSnapshot, written.journalPosition());
+        truncatedCopy(journal, endsBeforeSnapshot, written.journalPosition() - 1);
+
+        // Act
+        Ledger restored = new Ledger();
+        restored.loadSnapshot(snapshot);
+        long tailRecords = restored.openJournal(endsAtSnapshot);
+        restored.closeJournal();
+        Ledger behind = new Ledger();
+        behind.loadSnapshot(snapshot);
+        IOException failure = assertThrows(IOException.class, () -> behind.openJournal(endsBeforeSnapshot));
+
+        // Assert
+        assertEquals(0, tailRecords);
+        assertSameLedger(original, restored);
+        assertTrue(failure.getMessage().contains("ends before the snapshot position " + written.journalPosition()),
+                failure.getMessage());
+        assertNull(behind.getJournal());
+    }
+
+    @Test
+    public void testSnapshotsTakenDuringWritesReplayToFinalState(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path journal = tempDir.resolve("ledger.journal");
+        Ledger original = new Ledger();
+        original.openJournal(journal);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Random random = new Random(t);
+            writers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; i < 5_000; i++) {
+                        try {
+                            original.recordTransaction(JUNE_1 + random.nextInt(30), "AC" + random.nextInt(50),
+                                    random.nextInt(4) == 0 ? 'W' : 'D', 1 + random.nextInt(1_000));
+                        } catch (TransactionRejectedException e) {
+                            // Expected for random withdrawals
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+
+        // Act
+        List<Path> snapshots = new ArrayList<>();
+        for (int i = 0; writers.stream().anyMatch(Thread::isAlive); i++) {
+            Path snapshot = tempDir.resolve("ledger-" + i + ".snapshot");
+            original.writeSnapshot(snapshot);
+            snapshots.add(snapshot);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        original.closeJournal();
+
+        // Assert
+        assertNull(failure.get(), () -> String.valueOf(failure.get()));
+        assertFalse(snapshots.isEmpty());
+        for (Path snapshot : snapshots) {
+            Ledger restored = new Ledger();
+            restored.loadSnapshot(snapshot);
+            restored.openJournal(journal);
+            assertSameLedger(original, restored);
+            restored.closeJournal();
+        }
+    }
+
+    @Test
+    public void testCorruptSnapshotIsRejected(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path snapshot = tempDir.resolve("ledger.snapshot");
+        Ledger original = new Ledger();
+        original.recordTransaction(JUNE_1, "AC001", 'D', 10_000);
+        original.writeSnapshot(snapshot);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> new Ledger().loadSnapshot(snapshot));
+    }
+
+    private static void truncatedCopy(Path source, Path target, long size) throws IOException {
+        Files.copy(source, target);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static void assertSameLedger(Ledger expected, Ledger actual) {
+        assertEquals(expected.getAccounts().keySet(), actual.getAccounts().keySet());
+        for (Account account : expected.getAccounts().values()) {
+            Account restored = actual.getAccount(account.getAccountId());
+            assertEquals(account.getBalance(), restored.getBalance(), account.getAccountId());
+            assertEquals(account.getTransactions(), restored.getTransactions(), account.getAccountId());
+            assertEquals(account.getTransactionsBetween(LocalDate.MIN, LocalDate.MAX),
+                    restored.getTransactionsBetween(LocalDate.MIN, LocalDate.MAX), account.getAccountId());
+            assertEquals(account.getBalanceBefore(LocalDate.ofEpochDay(JUNE_1 + 15)),
+                    restored.getBalanceBefore(LocalDate.ofEpochDay(JUNE_1 + 15)), account.getAccountId());
+        }
+        assertEquals(expected.getTransactionCountByDate(), actual.getTransactionCountByDate());
+        assertEquals(List.copyOf(expected.getInterestRules().getRulesBetween(LocalDate.MIN, LocalDate.MAX)),
+                List.copyOf(actual.getInterestRules().getRulesBetween(LocalDate.MIN, LocalDate.MAX)));
+    }
+}
@@ -0,0 +1,131 @@
+package org.gerry.test;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.PrintStatement;
+import org.gerry.solution.PrintStatement.Statement;
+import org.gerry.solution.StatementCache;
+import org.gerry.solution.StatementCache.MonthlySummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheTest {
+
+    private static final int MAY_1 = (int) LocalDate.of(2023, 5, 1).toEpochDay();
+    private static final int JUNE_1 = (int) LocalDate.of(2023, 6, 1).toEpochDay();
+    private static final int JULY_1 = (int) LocalDate.of(2023, 7, 1).toEpochDay();
+
+    private Ledger ledger;
+    private StatementCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ledger = new Ledger(3);
+        cache = ledger.getStatementCache();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        ledger.recordTransaction(MAY_1 + 4, "AC001", 'D', 100_00);
+        ledger.recordTransaction(JUNE_1, "AC001", 'D', 150_00);
+        ledger.recordTransaction(JUNE_1 + 25, "AC001", 'W', 20_00);
+    }
+
+    @Test
+    public void testRepeatedStatementIsServedFromCache() {
+        // Act
+        Statement first = PrintStatement.buildStatement(ledger, ledger.getAccount("AC001"), 2023, 6);
+        Statement second = PrintStatement.buildStatement(ledger, ledger.getAccount("AC001"), 2023, 6);
+
+        // Assert
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(first, second);
+        assertEquals(PrintStatement.buildStatement(ledger.getAccount("AC001"), ledger.getInterestRules(), 2023, 6),
+                first);
+        MonthlySummary summary = summary(2023, 6);
+        assertEquals(new BigDecimal("100.00"), summary.openingBalance());
+        assertEquals(first.interestTransaction().amount(), summary.interest());
+        assertEquals(new BigDecimal("230.00").add(summary.interest()), summary.closingBalance());
+    }
+
+    @Test
+    public void testLaterTransactionKeepsEarlierMonths() throws Exception {
+        // Arrange
+        summary(2023, 5);
+        summary(2023, 6);
+
+        // Act
+        ledger.recordTransaction(JULY_1 + 3, "AC001", 'D', 1_00);
+        ledger.recordTransaction(MAY_1, "AC002", 'D', 1_00);
+
+        // Assert
+        assertEquals(2, cache.size());
+        summary(2023, 6);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testBackDatedTransactionDropsItsMonthAndLater() throws Exception {
+        // Arrange
+        summary(2023, 5);
+        summary(2023, 6);
+        summary(2023, 7);
+
+        // Act
+        ledger.recordTransaction(JUNE_1 + 10, "AC001", 'D', 50_00);
+
+        // Assert
+        assertEquals(1, cache.size());
+        summary(2023, 5);
+        assertEquals(1, cache.getHits());
+        assertEquals(uncached(2023, 6), summary(2023, 6));
+        assertEquals(uncached(2023, 7), summary(2023, 7));
+    }
+
+    @Test
+    public void testRuleChangeDropsMonthsEndingOnOrAfterIt() throws Exception {
+        // Arrange
+        summary(2023, 5);
+        summary(2023, 6);
+
+        // Act
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 6, 30), "RULE02", new BigDecimal("3.00")));
+
+        // Assert
+        assertEquals(1, cache.size());
+        summary(2023, 5);
+        assertEquals(1, cache.getHits());
+        assertEquals(uncached(2023, 6), summary(2023, 6));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        // Arrange
+        summary(2023, 4);
+        summary(2023, 5);
+        summary(2023, 6);
+        summary(2023, 4);
+
+        // Act
+        summary(2023, 7);
+
+        // Assert
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        summary(2023, 4);
+        assertEquals(2, cache.getHits());
+        summary(2023, 5);
+        assertEquals(2, cache.getHits());
+    }
+
+    private MonthlySummary uncached(int year, int month) {
+        return new StatementCache(1).get(ledger.getAccount("AC001"), ledger.getInterestRules(), year, month);
+    }
+
+    private MonthlySummary summary(int year, int month) {
+        return cache.get(ledger.getAccount("AC001"), ledger.getInterestRules(), year, month);
+    }
+}
@@ -0,0 +1,154 @@
+package org.gerry.test;
+
+import org.gerry.solution.BankAccountInterest.InterestRule;
+import org.gerry.solution.BankAccountInterest.Transaction;
+import org.gerry.solution.Ledger;
+import org.gerry.solution.Money;
+import org.gerry.solution.PrintStatement;
+import org.gerry.solution.PrintStatement.Statement;
+import org.gerry.solution.StatementRenderer;
+import org.gerry.solution.StatementRenderer.Format;
+import org.gerry.solution.TransactionRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementRendererTest {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int JAN_1 = (int) LocalDate.of(2023, 1, 1).toEpochDay();
+
+    @Test
+    public void testTextMatchesPrintfOutputByteForByte() throws Exception {
+        // Arrange - amounts up to the millions so the grouping separators and column overflow are covered
+        Ledger ledger = randomLedger(new Random(17), 2_000, 200_000_000);
+        StringWriter rendered = new StringWriter();
+        StatementRenderer renderer = StatementRenderer.create(Format.TEXT, rendered);
+        StringBuilder expected = new StringBuilder();
+
+        // Act
+        for (String accountId : ledger.getAccounts().keySet()) {
+            for (int month = 1; month <= 12; month++) {
+                Statement statement = PrintStatement.buildStatement(ledger.getAccount(accountId),
+                        ledger.getInterestRules(), 2023, month);
+                renderer.render(statement);
+                expected.append(legacyStatement(statement));
+            }
+            List<Transaction> transactions = ledger.getAccount(accountId).getTransactions();
+            renderer.renderTransactions(accountId, transactions);
+            expected.append(legacyTransactions(accountId, transactions));
+        }
+        renderer.flush();
+
+        // Assert
+        assertEquals(expected.toString(), rendered.toString());
+    }
+
+    @Test
+    public void testCsvRowsCarryTheRunningBalance() throws Exception {
+        // Arrange
+        Statement statement = new Statement("AC,1", new BigDecimal("100.00"), List.of(
+                new Transaction(LocalDate.of(2023, 6, 1), "AC,1", 'D', new BigDecimal("1500.00"), "20230601-01"),
+                new Transaction(LocalDate.of(2023, 6, 26), "AC,1", 'W', new BigDecimal("20.05"), "20230626-01")),
+                new Transaction(LocalDate.of(2023, 6, 30), "AC,1", 'I', new BigDecimal("0.40"), "           "));
+        StringWriter out = new StringWriter();
+        StatementRenderer renderer = StatementRenderer.create(Format.CSV, out);
+
+        // Act
+        renderer.header();
+        renderer.render(statement);
+        renderer.flush();
+
+        // Assert
+        assertEquals("""
+                account,date,txn_id,type,amount,balance
+                "AC,1",20230601,20230601-01,D,1500.00,1600.00
+                "AC,1",20230626,20230626-01,W,20.05,1579.95
+                "AC,1",20230630,,I,0.40,1580.35
+                """, out.toString());
+    }
+
+    @Test
+    public void testJsonWritesOneObjectPerStatement() throws Exception {
+        // Arrange
+        Statement statement = new Statement("AC\"1", new BigDecimal("0.00"), List.of(
+                new Transaction(LocalDate.of(2023, 6, 1), "AC\"1", 'D', new BigDecimal("150.00"), "20230601-01")),
+                new Transaction(LocalDate.of(2023, 6, 30), "AC\"1", 'I', new BigDecimal("0.24"), "           "));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StatementRenderer renderer = StatementRenderer.create(Format.JSON, bytes);
+
+        // Act
+        renderer.render(statement);
+        renderer.render(statement);
+        renderer.flush();
+
+        // Assert
+        String line = "{\"account\":\"AC\\\"1\",\"month\":\"202306\",\"openingBalance\":0.00,\"transactions\":["
+                + "{\"date\":\"20230601\",\"txnId\":\"20230601-01\",\"type\":\"D\",\"amount\":150.00,"
+                + "\"balance\":150.00}],\"interest\":0.24,\"closingBalance\":150.24}\n";
+        assertEquals(line + line, bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    private static Ledger randomLedger(Random random, int transactions, int maxCents) throws Exception {
+        Ledger ledger = new Ledger();
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 1, 1), "RULE01", new BigDecimal("1.95")));
+        ledger.defineRule(new InterestRule(LocalDate.of(2023, 7, 12), "RULE02", new BigDecimal("2.35")));
+        for (int i = 0; i < transactions; i++) {
+            try {
+                ledger.recordTransaction(JAN_1 + random.nextInt(365), "AC" + random.nextInt(20),
+                        random.nextInt(3) == 0 ? 'W' : 'D', 1 + random.nextInt(maxCents));
+            } catch (TransactionRejectedException e) {
+                // Expected for random withdrawals
+            }
+        }
+        return ledger;
+    }
+
+    // Reference copy of the printf statement table that the text renderer replaced
+    private static String legacyStatement(Statement statement) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        out.println("\nAccount: " + statement.accountId());
+        out.println("| Date     | Txn Id      | Type | Amount  | Balance |");
+
+        long runningBalanceCents = Money.toCents(statement.openingBalance());
+        DecimalFormat df = new DecimalFormat("#,##0.00");
+        for (Transaction t : statement.transactions()) {
+            long cents = Money.toCents(t.amount());
+            runningBalanceCents = t.type() == 'D' ? runningBalanceCents + cents : runningBalanceCents - cents;
+            out.printf("| %s | %-10s | %-4s | %7s | %7s |\n", t.date().format(DATE_FORMAT), t.transactionId(),
+                    t.type(), df.format(t.amount()), df.format(Money.fromCents(runningBalanceCents)));
+        }
+
+        Transaction interestTransaction = statement.interestTransaction();
+        runningBalanceCents += Money.toCents(interestTransaction.amount());
+        out.printf("| %s | %-10s | %-4s | %7s | %7s |\n", interestTransaction.date().format(DATE_FORMAT),
+                interestTransaction.transactionId(), interestTransaction.type(),
+                df.format(interestTransaction.amount()), df.format(Money.fromCents(runningBalanceCents)));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    // Reference copy of the printf echo after a transaction was entered
+    private static String legacyTransactions(String accountId, List<Transaction> transactions) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        out.println("\nAccount: " + accountId);
+        out.println("| Date     | Txn Id      | Type | Amount |");
+        for (Transaction t : transactions) {
+            out.printf("| %s | %-10s | %-4s | %6.2f |\n", t.date().format(DATE_FORMAT), t.transactionId(),
+                    String.valueOf(t.type()), t.amount());
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,103 @@
+package org.gerry.test;
+
+import org.gerry.solution.Ledger;
+import org.gerry.solution.TransactionIds;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionIdsTest {
+
+    private static final int JUNE_1 = (int) LocalDate.of(2023, 6, 1).toEpochDay();
+
+    @Test
+    public void testConcurrentAllocationHandsOutEverySequenceOnce() throws Exception {
+        // Arrange
+        TransactionIds ids = new TransactionIds();
+        int threads = 8;
+        int perThread = 50_000;
+        List<Future<boolean[]>> results = new ArrayList<>();
+
+        // Act - every thread draws from the same two days
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    boolean[] seen = new boolean[threads * perThread / 2 + 1];
+                    for (int i = 0; i < perThread; i++) {
+                        int sequence = ids.next(JUNE_1 + (i & 1));
+                        if ((i & 1) == 0) {
+                            seen[sequence] = true;
+                        }
+                    }
+                    return seen;
+                }));
+            }
+        }
+
+        // Assert
+        boolean[] all = new boolean[threads * perThread / 2 + 1];
+        for (Future<boolean[]> result : results) {
+            boolean[] seen = result.get();
+            for (int s = 1; s < seen.length; s++) {
+                if (seen[s]) {
+                    assertFalse(all[s], "Sequence " + s + " handed out twice");
+                    all[s] = true;
+                }
+            }
+        }
+        for (int s = 1; s < all.length; s++) {
+            assertTrue(all[s], "Sequence " + s + " never handed out");
+        }
+        assertEquals(threads * perThread / 2, ids.get(JUNE_1));
+        assertEquals(threads * perThread / 2, ids.get(JUNE_1 + 1));
+        assertEquals(0, ids.get(JUNE_1 + 2));
+    }
+
+    @Test
+    public void testPackedIdsAreFormattedWithWiderSequences() {
+        // Arrange
+        long id = TransactionIds.pack(JUNE_1, 7);
+        int firstDay = (int) LocalDate.of(0, 1, 1).toEpochDay();
+        int lastDay = (int) LocalDate.of(9999, 12, 31).toEpochDay();
+
+        // Act & Assert
+        assertEquals(JUNE_1, TransactionIds.epochDay(id));
+        assertEquals(7, TransactionIds.sequence(id));
+        assertEquals("20230601-07", TransactionIds.format(id));
+        assertEquals("20230601-100", TransactionIds.format(JUNE_1, 100));
+        assertEquals("19691231-12345", TransactionIds.format(-1, 12_345));
+        assertEquals("00000101-01", TransactionIds.format(firstDay, 1));
+        assertEquals("99991231-99", TransactionIds.format(lastDay, 99));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionIds().next(lastDay + 1));
+    }
+
+    @Test
+    public void testRestoreKeepsTheHighestSequenceAndLedgerIdsContinue() throws Exception {
+        // Arrange
+        Ledger ledger = new Ledger();
+        for (int i = 0; i < 99; i++) {
+            ledger.recordTransaction(JUNE_1, "AC001", 'D', 100);
+        }
+        ledger.getTransactionIds().restore(JUNE_1 + 3, 5);
+        ledger.getTransactionIds().restore(JUNE_1 + 3, 2);
+
+        // Act
+        String hundredth = ledger.recordTransaction(JUNE_1, "AC001", 'D', 100).transactionId();
+        String afterRestore = ledger.recordTransaction(JUNE_1 + 3, "AC001", 'D', 100).transactionId();
+
+        // Assert
+        assertEquals("20230601-100", hundredth);
+        assertEquals("20230604-06", afterRestore);
+        assertEquals("20230601-100", ledger.getAccount("AC001").getTransactions().get(99).transactionId());
+        assertArrayEquals(new long[]{TransactionIds.pack(JUNE_1, 100), TransactionIds.pack(JUNE_1 + 3, 6)},
+                ledger.getTransactionIds().toArray());
+        assertEquals(100, ledger.getTransactionCountByDate().get("20230601"));
+    }
+}